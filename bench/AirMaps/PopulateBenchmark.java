@@ -0,0 +1,54 @@
+package AirMaps;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time to parse the dataset with {@link FlightsParser} and to populate an
+ * {@link AirRoutes} with it, on the networks of
+ * {@link FlightsParser#AIRLINECODES} and {@link FlightsParser#MOREAIRLINECODES}.
+ * Run from the project folder, where the Dataset folder is.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PopulateBenchmark {
+
+    @Param({ "AIRLINECODES", "MOREAIRLINECODES" })
+    public String airlines;
+
+    private HashSet<String[]> airlineRows, airportRows, flightRows;
+    private FlightTable flightTable;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        FlightsParser parser = new FlightsParser(RoutesBenchmark.airlineCodes(airlines));
+        airlineRows = parser.getAirlines();
+        airportRows = parser.getAirports();
+        flightRows = parser.getFlights();
+        flightTable = parser.getFlightTable();
+    }
+
+    @Benchmark
+    public FlightsParser parse() throws Exception {
+        return new FlightsParser(RoutesBenchmark.airlineCodes(airlines));
+    }
+
+    @Benchmark
+    public AirRoutes populate() {
+        AirRoutes routes = new AirRoutes();
+        routes.populate(airlineRows, airportRows, flightRows);
+        return routes;
+    }
+
+    @Benchmark
+    public AirRoutes populateFlightTable() {
+        AirRoutes routes = new AirRoutes();
+        routes.populate(airlineRows, airportRows, flightTable);
+        return routes;
+    }
+}
@@ -0,0 +1,163 @@
+package AirMaps;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Throughput and latency percentiles of every {@link Routes} query, on the
+ * networks of {@link FlightsParser#AIRLINECODES} and
+ * {@link FlightsParser#MOREAIRLINECODES}. Every query is asked for the same
+ * seeded airport pairs, in turn, so runs are comparable. The pairs are airports
+ * with a route between them, and the excluded airports are picked for each pair.
+ * Run from the project folder, where the Dataset folder is.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutesBenchmark {
+    private static final int PAIRS = 256;
+    private static final int EXCLUDED = 3; // excluded airports of every pair
+    private static final int MAX_HOP = 2; // of the allRoutesHop queries
+    private static final double MAX_COST = 1.02; // of the allRoutesCost queries, times the cheapest cost of the pair
+    private static final int MAX_LABELS = 100000; // of the paretoRoutes queries
+    private static final String[] START_TIMES = { "0000", "0600", "1200", "1800" };
+
+    @Param({ "AIRLINECODES", "MOREAIRLINECODES" })
+    public String airlines;
+
+    private AirRoutes routes;
+    private String[] from, to;
+    private List<List<String>> excluding;
+    private int[] maxCost;
+
+    // the pair asked next by a thread
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            int pair = next;
+            next = (next + 1) % PAIRS;
+            return pair;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        FlightsParser parser = new FlightsParser(airlineCodes(airlines));
+        routes = new AirRoutes();
+        routes.populate(parser.getAirlines(), parser.getAirports(), parser.getFlights());
+        List<String> airports = routes.freeze().network().airports();
+        Random random = new Random(42);
+        from = new String[PAIRS];
+        to = new String[PAIRS];
+        excluding = new ArrayList<>();
+        maxCost = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            Route route;
+            do { // a pair with a route between its airports
+                from[i] = airports.get(random.nextInt(airports.size()));
+                to[i] = airports.get(random.nextInt(airports.size()));
+                try {
+                    route = from[i].equals(to[i]) ? null : routes.leastCost(from[i], to[i]);
+                } catch (AirRoutesException e) {
+                    route = null;
+                }
+            } while (route == null);
+            maxCost[i] = (int) (route.totalCost() * MAX_COST);
+            List<String> excluded = new ArrayList<>();
+            while (excluded.size() < EXCLUDED) {
+                String airport = airports.get(random.nextInt(airports.size()));
+                if (!airport.equals(from[i]) && !airport.equals(to[i]) && !excluded.contains(airport)) {
+                    excluded.add(airport);
+                }
+            }
+            excluding.add(excluded);
+        }
+    }
+
+    // returns the airline codes of FlightsParser with a name
+    static String[] airlineCodes(String name) {
+        return name.equals("AIRLINECODES") ? FlightsParser.AIRLINECODES : FlightsParser.MOREAIRLINECODES;
+    }
+
+    @Benchmark
+    public Route leastCost(Cursor cursor) throws AirRoutesException {
+        int i = cursor.next();
+        return routes.leastCost(from[i], to[i]);
+    }
+
+    @Benchmark
+    public Route leastHop(Cursor cursor) throws AirRoutesException {
+        int i = cursor.next();
+        return routes.leastHop(from[i], to[i]);
+    }
+
+    @Benchmark
+    public Object leastCostExcluding(Cursor cursor) {
+        int i = cursor.next();
+        try {
+            return routes.leastCost(from[i], to[i], excluding.get(i));
+        } catch (AirRoutesException e) { // the excluded airports may leave no route
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Route leastHopExcluding(Cursor cursor) throws AirRoutesException {
+        int i = cursor.next();
+        return routes.leastHop(from[i], to[i], excluding.get(i));
+    }
+
+    @Benchmark
+    public Object leastCostMeetUp(Cursor cursor) {
+        int i = cursor.next();
+        try {
+            return routes.leastCostMeetUp(from[i], to[i]);
+        } catch (AirRoutesException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object leastHopMeetUp(Cursor cursor) {
+        int i = cursor.next();
+        try {
+            return routes.leastHopMeetUp(from[i], to[i]);
+        } catch (AirRoutesException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object leastTimeMeetUp(Cursor cursor) {
+        int i = cursor.next();
+        try {
+            return routes.leastTimeMeetUp(from[i], to[i], START_TIMES[i % START_TIMES.length]);
+        } catch (AirRoutesException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public List<Route> allRoutesCost(Cursor cursor) throws AirRoutesException {
+        int i = cursor.next();
+        return routes.allRoutesCost(from[i], to[i], excluding.get(i), maxCost[i]);
+    }
+
+    @Benchmark
+    public List<Route> allRoutesHop(Cursor cursor) throws AirRoutesException {
+        int i = cursor.next();
+        return routes.allRoutesHop(from[i], to[i], excluding.get(i), MAX_HOP);
+    }
+
+    @Benchmark
+    public QueryResult<List<Route>> paretoRoutes(Cursor cursor) throws AirRoutesException {
+        int i = cursor.next();
+        return routes.paretoRoutes(from[i], to[i], excluding.get(i), MAX_LABELS);
+    }
+}
@@ -0,0 +1,81 @@
+package AirMaps;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Latency of the least cost and least hops queries on synthetic networks of
+ * growing size, written by {@link NetworkGenerator} with ten flights a day per
+ * airport. The memory taken by the populated routes is printed by the setup; run
+ * with {@code -prof gc} for the allocations of the queries.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalingBenchmark {
+    private static final int PAIRS = 256;
+
+    @Param({ "1000", "4000", "16000" })
+    public int airports;
+
+    private AirRoutes routes;
+    private String[] from, to;
+
+    // the pair asked next by a thread
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            int pair = next;
+            next = (next + 1) % PAIRS;
+            return pair;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        File folder = Files.createTempDirectory("airmaps").toFile();
+        NetworkGenerator generator = new NetworkGenerator().airports(airports).airlines(20).flightsPerDay(10 * airports);
+        generator.write(folder);
+        FlightsParser parser = new FlightsParser(folder, generator.getAirlineCodes());
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        routes = new AirRoutes();
+        routes.populate(parser.getAirlines(), parser.getAirports(), parser.getFlightTable());
+        System.gc();
+        System.out.printf("%n%d airports: %d MB populated%n", airports, (runtime.totalMemory() - runtime.freeMemory() - before) >> 20);
+        List<String> codes = routes.freeze().network().airports();
+        Random random = new Random(42);
+        from = new String[PAIRS];
+        to = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = codes.get(random.nextInt(codes.size()));
+            to[i] = codes.get(random.nextInt(codes.size()));
+        }
+    }
+
+    @Benchmark
+    public Object leastCost(Cursor cursor) {
+        int i = cursor.next();
+        try {
+            return routes.leastCost(from[i], to[i]);
+        } catch (AirRoutesException e) { // a few small airports have no route
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Route leastHop(Cursor cursor) throws AirRoutesException {
+        int i = cursor.next();
+        return routes.leastHop(from[i], to[i]);
+    }
+}
@@ -1,18 +1,19 @@
 package AirMaps;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.*;
+import java.util.stream.Stream;
 
-import org.jgrapht.*;
-import org.jgrapht.alg.shortestpath.AllDirectedPaths;
-import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
-import org.jgrapht.alg.shortestpath.KShortestSimplePaths;
 import org.jgrapht.graph.*;
 
 
 public class AirRoutes implements Routes {
     private DirectedWeightedPseudograph<String, Flight> graph = new DirectedWeightedPseudograph<>(Flight.class); // graph object
-    private DirectedWeightedPseudograph<String, Flight> graphExclude = new DirectedWeightedPseudograph<>(Flight.class); // graph object for excluding airports
+    private Map<String, Flight> flights = new HashMap<>(); // every flight of the graph by flight code
+    private Map<String, double[]> coordinates = new HashMap<>(); // latitude and longitude of the airports that have some
+    private FrozenRoutes frozen = new FrozenRoutes(graph, coordinates); // read-only copy of the graph answering the queries
+    private boolean behind; // the queries run on a snapshot whose airports and flights are not in the graph yet
     private String ap1, ap2; // airport1 (departure) and airport2 (arrival)
 
 
@@ -28,226 +29,20 @@ public class AirRoutes implements Routes {
         return this.ap2;
     }
 
-    // returns the cheapest edge of parallel edges
-    private Flight cheapestEdge(String departure, String arrival) {
-        Set<Flight> allFlights = graph.getAllEdges(departure, arrival);
-        if (allFlights.size() == 0) {
-            allFlights = graphExclude.getAllEdges(departure, arrival);
-        }
-        Iterator<Flight> fIter = allFlights.iterator();
-        Flight f = fIter.next();
-        Flight f2;
-        Double price = graph.getEdgeWeight(f);
-        Double next_price;
-        while (fIter.hasNext()) {
-            f2 = fIter.next();
-            next_price = graph.getEdgeWeight(f2);
-            if (next_price < price) {
-                price = next_price;
-                f = f2;
-            }
-        }
-        return f;
-    }
-
-    // returns the total price of a route
-    private int totalPrice(List<String> airports) {
-        Iterator<String> iter = airports.iterator();
-        String v1 = iter.next();
-        String v2;
-        Flight f;
-        int total_price = 0;
-        while (iter.hasNext()) {
-            v2 = iter.next();
-            f = cheapestEdge(v1, v2);
-            total_price += graph.getEdgeWeight(f);
-            v1 = v2;
-        }
-        return total_price;
-    }
-
-    // returns the list of flight codes of a route
-    private List<String> getFlightsList(List<String> vertices) {
-        Iterator<String> iter = vertices.iterator();
-        String v1 = iter.next();
-        String v2;
-        Flight f;
-        List<String> flights_list = new ArrayList<>();
-        while (iter.hasNext()) {
-            v2 = iter.next();
-            f = cheapestEdge(v1, v2);
-            flights_list.add(f.getCode());
-            v1 = v2;
-        }
-        return flights_list;
-    }
-
-    // returns the departure time of a route
-    private String getDepartureTime(List<String> vertices) {
-        Iterator<String> iter = vertices.iterator();
-        Flight f = graph.getEdge(iter.next(), iter.next());
-        return f.getDeparture();
-    }
-
-    // calculates the time difference between departure and arrival
-    private int calcTime(String departureTime, String arrivalTime) {
-        int startHour = Integer.parseInt(departureTime.substring(0, 2));
-        int startMin = Integer.parseInt(departureTime.substring(2, 4));
-        int endHour = Integer.parseInt(arrivalTime.substring(0, 2));
-        int endMin = Integer.parseInt(arrivalTime.substring(2, 4));
-        int minDiff = endMin - startMin;
-        int hourDiff = endHour - startHour;
-        if (hourDiff < 0 || (hourDiff<=0 && minDiff<=0)) {
-            hourDiff += 24;
-        }
-        int time_diff = hourDiff * 60 + minDiff;
-        return time_diff;
-    }
-
-    // returns the total time in the air of a route
-    private int getAirTime(List<String> vertices) {
-        Iterator<String> iter = vertices.iterator();
-        String v1 = iter.next();
-        String v2;
-        Flight f;
-        int air_time = 0;
-        while (iter.hasNext()) {
-            v2 = iter.next();
-            f = cheapestEdge(v1, v2);
-            air_time += calcTime(f.getDeparture(), f.getArrival());
-            v1 = v2;
-        }
-        return air_time;
-    }
-
-    // returns the total waiting time in connections of a route
-    private int getConnectingTime(List<String> vertices) {
-        Iterator<String> iter = vertices.iterator();
-        String v1 = iter.next();
-        String v2 = iter.next();
-        String v3;
-        Flight f1 = cheapestEdge(v1, v2);
-        Flight f2;
-        int connecting_time = 0;
-        while (iter.hasNext()) {
-            v3 = iter.next();
-            f2 = cheapestEdge(v2, v3);
-            connecting_time += calcTime(f1.getArrival(), f2.getDeparture());
-            f1 = f2;
-            v2 = v3;
-        }
-        return connecting_time;
-    }
-
-    // excludes a list of airports from a list of paths
-    private void excludeAirports(List<GraphPath<String, Flight>> allPaths, List<String> airports) {
-        Iterator<GraphPath<String, Flight>> pathsIter = allPaths.iterator();
-        List<Integer> exclude = new ArrayList<>();
-        int index = 0;
-        while (pathsIter.hasNext()) {
-            List<String> vList = pathsIter.next().getVertexList();
-            for (String airport : airports) {
-                if (vList.contains(airport)) {
-                    exclude.add(index);
-                    index--; // decrement index after adding because exclude is an ArrayList not an Array
-                    break;  // break if the path includes one of the airports
-                }
-            }
-            index++;  // increment index when iterating to the next path
-        }
-        for (int i : exclude) {
-            allPaths.remove(i);
-        }
-    }
-
     // returns the least time meet up route from one airport to another given a starting time.
     // used to find the route from the two starting airports to the meet up airport for the leastTimeMeetUp() method.
     private Route earliestRoute(String from, String to, String startTime) throws AirRoutesException {
-        if (!graph.containsVertex(from) || !graph.containsVertex(to)) {
-            throw new AirRoutesException("Airport does not exist!");
-        }
-        AllDirectedPaths<String, Flight> adp = new AllDirectedPaths<>(graph);
-        int waitingTime, time1, time2;
-        time2 = 10000000;
-        Route earliest_route = null;
-
-        List<GraphPath<String, Flight>> allPaths = adp.getAllPaths(from, to, false, 3);
-        for (GraphPath<String, Flight> path : allPaths) {
-            if (path.getVertexList().size() > 1){
-                waitingTime = calcTime(startTime, getDepartureTime(path.getVertexList()));
-                Route ir = createRoute(path.getVertexList());
-                time1 = waitingTime + ir.totalTime();
-                if (time1<time2){
-                    time2 = time1;
-                    earliest_route = ir;
-                }
-
-            }
-        }
-        return earliest_route;
-    }
-
-    // A method that creates an Route from a list of vertices.
-    // This method prevents having to write the implementation of the Route interface several times
-    // thus improving readability, style and clarity.
-    private Route createRoute(List<String> stops) {
-        Route ir = new Route() {
-            @Override
-            public List<String> getStops() {
-                return stops;
-            }
-            @Override
-            public int totalCost() {
-                return totalPrice(getStops());
-            }
-
-            @Override
-            public List<String> getFlights() {
-                return getFlightsList(getStops());
-            }
-
-            @Override
-            // subtract 1 because the smallest path has 2 airports, and thus 1 hop
-            public int totalHop() {
-                return getStops().size() - 1;
-            }
-
-            @Override
-            public int airTime() {
-                return getAirTime(getStops());
-            }
-
-            @Override
-            public int connectingTime() {
-                return getConnectingTime(getStops());
-            }
-            @Override
-            public int totalTime() {
-                return airTime() + connectingTime();
-            }
-        };
-        return ir;
+        return frozen.earliestRoute(from, to, startTime); // null if no route exists
     }
 
     // prints the data of an Route
     private void displayData(Route route) {
-        Iterator<String> iter = route.getStops().iterator();
         String formatter = "%-20s %-20s %-20s %-20s %-20s %-20s %-20s";
         String header = String.format(formatter, "Leg", "Leave", "At", "On", "Arrive", "At", "Price");
         System.out.println(header); // print the header row of the route
-        String departure = iter.next();
         int i = 1;
-        String flightNumber = "";
-        String departureTime = "";
-        String arrivalTime = "";
-        while (iter.hasNext()) { // iterate over the vertices and print every flight of the route
-            String arrival = iter.next();
-            Flight f = cheapestEdge(departure, arrival);
-            flightNumber = f.getCode();
-            departureTime = f.getDeparture();
-            arrivalTime = f.getArrival();
-            System.out.println(String.format(formatter, i, departure, departureTime, flightNumber, arrival, arrivalTime, graph.getEdgeWeight(f)));
-            departure = arrival;
+        for (Flight f : ((FlightRoute) route).getLegs()) { // every route created by this class is a FlightRoute
+            System.out.println(String.format(formatter, i, f.getFrom(), f.getDeparture(), f.getCode(), f.getTo(), f.getArrival(), f.getPrice()));
             i++;
         }
 
@@ -268,57 +63,191 @@ public class AirRoutes implements Routes {
     }
 
     // populates the graph
-    private void populateExcluding(HashSet<String[]> airports, HashSet<String[]> routes, List<String> exclude) {
+    public boolean populate(HashSet<String[]> airlines, HashSet<String[]> airports, HashSet<String[]> routes) {
+        FlightTable table;
+        try {
+            table = FlightTable.of(routes);
+        } catch (IllegalArgumentException e) { // a time or price that is not one, nothing is added
+            return false;
+        }
+        return populate(airlines, airports, table);
+    }
+
+    /**
+     * Populates the graph with the airlines, airports and flights information, the
+     * flights being already parsed by {@link FlightsParser#getFlightTable()}.
+     * Returns true if the operation was successful.
+     */
+    public boolean populate(HashSet<String[]> airlines, HashSet<String[]> airports, FlightTable routes) {
+        catchUp();
 
         // add vertices to the graph
         for (String[] airport : airports) {
-            if (!exclude.contains(airport[0])) {
-                graphExclude.addVertex(airport[0]);
+            graph.addVertex(airport[0]);
+            if (airport.length >= 5) { // optional latitude and longitude
+                try {
+                    coordinates.put(airport[0], new double[] { Double.parseDouble(airport[3]), Double.parseDouble(airport[4]) });
+                } catch (NumberFormatException e) {
+                    // the airport has no usable coordinates
+                }
             }
         }
 
         // add edges to the graph
-        for (String[] route : routes) {
-            if (!exclude.contains(route[1]) && !exclude.contains(route[3])){
-                Flight e = new Flight(route[0], route[2], route[4]); // create a flight object to be used as the edge(code, departure, arrival)
-                graphExclude.addEdge(route[1], route[3], e);
-                graphExclude.setEdgeWeight(e, Double.parseDouble(route[5])); // add price as edge weight
+        for (int i = 0; i < routes.size(); i++) {
+            if (flights.containsKey(routes.code(i))) { // populating again with the same flights adds nothing
+                continue;
             }
+            Flight e = new Flight(routes.code(i), routes.departure(i), routes.arrival(i)); // create a flight object to be used as the edge(code, departure, arrival)
+            addFlight(routes.from(i), routes.to(i), e, routes.price(i));
         }
+
+        // rebuild the read-only copy of the graph, the previous one stays as it was for whoever still holds it
+        frozen = new FrozenRoutes(graph, coordinates);
+        return true;
     }
 
+    // adds a flight to the graph
+    private void addFlight(String from, String to, Flight e, double price) {
+        graph.addEdge(from, to, e);
+        graph.setEdgeWeight(e, price); // add price as edge weight
+        flights.put(e.getCode(), e);
+    }
 
-    // populates the graph
-    public boolean populate(HashSet<String[]> airlines, HashSet<String[]> airports, HashSet<String[]> routes) {
+    // adds the airports and flights of frozen routes to the graph, in the order of their network
+    private void add(FrozenRoutes routes) {
+        FlightNetwork network = routes.network();
+        for (int a = 0; a < network.airportCount(); a++) {
+            graph.addVertex(network.airport(a));
+            if (!Double.isNaN(routes.latitude(a)) && !Double.isNaN(routes.longitude(a))) {
+                coordinates.put(network.airport(a), new double[] { routes.latitude(a), routes.longitude(a) });
+            }
+        }
+        for (int e = 0; e < network.flightCount(); e++) {
+            Flight f = network.flight(e);
+            if (flights.containsKey(f.getCode())) { // populating again with the same flights adds nothing
+                continue;
+            }
+            addFlight(f.getFrom(), f.getTo(), new Flight(f.getCode(), f.getDepartureMinute(), f.getArrivalMinute()), f.getPrice());
+        }
+    }
 
-        // add vertices to the graph
-        for (String[] airport : airports) {
-            graph.addVertex(airport[0]);
+    // adds the airports and flights of the snapshot the queries run on to the graph, before the graph changes
+    private void catchUp() {
+        if (behind) {
+            add(frozen);
+            behind = false;
         }
+    }
 
-        // add edges to the graph
-        for (String[] route : routes) {
-            Flight e = new Flight(route[0], route[2], route[4]); // create a flight object to be used as the edge(code, departure, arrival)
-            graph.addEdge(route[1], route[3], e);
-            graph.setEdgeWeight(e, Double.parseDouble(route[5])); // add price as edge weight
+    // removes a flight from the graph
+    private void removeFlight(Flight e) {
+        graph.removeEdge(e);
+        flights.remove(e.getCode());
+    }
+
+    // checks a time of the day (HHMM), throwing an exception if it is not one
+    private static String time(String time) throws AirRoutesException {
+        if (time == null || !time.matches("\\d{4}") || Flight.minutes(time) >= 24 * 60 || time.charAt(2) > '5') {
+            throw new AirRoutesException("Invalid time: " + time);
+        }
+        return time;
+    }
+
+    /**
+     * Applies changes to the flights of the graph: flights added, removed or
+     * repriced by flight code. Every change is checked before any is applied, so
+     * the graph changes with all of them or with none, and the queries see either
+     * the old or the new flights. Applying the same changes again changes nothing.
+     * Returns true if the flights changed.
+     */
+    public boolean update(FlightUpdates updates) throws AirRoutesException {
+        catchUp();
+
+        // the flight every change leaves for its code, null if removed, checked before the graph is changed
+        Map<String, FlightUpdates.Change> planned = new LinkedHashMap<>();
+        for (FlightUpdates.Change c : updates.changes()) {
+            FlightUpdates.Change current = planned.containsKey(c.code) ? planned.get(c.code) : existing(c.code);
+            if (c.kind != FlightUpdates.Kind.REMOVE && (c.price < 0 || Double.isNaN(c.price))) { // the searches need prices of zero or more
+                throw new AirRoutesException("Invalid price for flight " + c.code + ": " + c.price);
+            }
+            switch (c.kind) {
+                case ADD:
+                    if (!graph.containsVertex(c.from) || !graph.containsVertex(c.to)) {
+                        throw new AirRoutesException("Airport does not exist!");
+                    }
+                    planned.put(c.code, new FlightUpdates.Change(c.kind, c.code, c.from, time(c.departure), c.to, time(c.arrival), c.price));
+                    break;
+                case REMOVE:
+                    planned.put(c.code, null);
+                    break;
+                case REPRICE:
+                    if (current == null) {
+                        throw new AirRoutesException("Flight does not exist: " + c.code);
+                    }
+                    planned.put(c.code, new FlightUpdates.Change(FlightUpdates.Kind.ADD, c.code, current.from, current.departure, current.to, current.arrival, c.price));
+                    break;
+            }
+        }
+
+        // only the flights that end up different are replaced, by new flights: the earlier copies of the graph stay as they were
+        boolean changed = false;
+        for (Map.Entry<String, FlightUpdates.Change> entry : planned.entrySet()) {
+            FlightUpdates.Change now = existing(entry.getKey()), next = entry.getValue();
+            if (now == null ? next == null : now.sameFlight(next)) {
+                continue;
+            }
+            if (now != null) {
+                removeFlight(flights.get(entry.getKey()));
+            }
+            if (next != null) {
+                addFlight(next.from, next.to, new Flight(next.code, Flight.minutes(next.departure), Flight.minutes(next.arrival)), next.price);
+            }
+            changed = true;
         }
+        if (changed) {
+            frozen = new FrozenRoutes(graph, coordinates);
+        }
+        return changed;
+    }
 
+    // returns the flight of the graph with a flight code as an added flight, or null if there is none
+    private FlightUpdates.Change existing(String code) {
+        Flight f = flights.get(code);
+        return f == null ? null : new FlightUpdates.Change(FlightUpdates.Kind.ADD, code, f.getFrom(), f.getDeparture(), f.getTo(), f.getArrival(), f.getPrice());
+    }
+
+    /**
+     * Populates the graph with the airports and flights of a snapshot. Populating
+     * an empty graph makes the queries run on the routes of the snapshot as they
+     * are, the graph taking their airports and flights only when it changes next.
+     * Returns true if the operation was successful.
+     */
+    public boolean populate(NetworkSnapshot snapshot) {
+        if (!behind && graph.vertexSet().isEmpty()) {
+            frozen = snapshot.getRoutes();
+            behind = true;
+            return true;
+        }
+        catchUp();
+        add(snapshot.getRoutes());
+        frozen = new FrozenRoutes(graph, coordinates);
         return true;
     }
 
+    /**
+     * Returns the flights from one airport (airport code) to another, in increasing
+     * departure time
+     */
+    public List<Flight> getFlights(String from, String to) {
+        return frozen.getFlights(from, to);
+    }
+
     /**
      * Returns a cheapest flight route from one airport (airport code) to another
      */
     public Route leastCost(String from, String to) throws AirRoutesException {
-        if (!graph.containsVertex(from) || !graph.containsVertex(to)) { // if the airport does not exist in the graph throw an exception
-            throw new AirRoutesException("Airport does not exist!");
-        }
-        DijkstraShortestPath<String, Flight> dijkstraAlg = new DijkstraShortestPath<>(graph);
-        GraphPath<String, Flight> cheapestPaths = dijkstraAlg.getPath(from, to);
-        if (cheapestPaths == null) { // throw an exception if no path exists between two airports.
-            throw new AirRoutesException("No route exists between these two airports");
-        }
-        return createRoute(cheapestPaths.getVertexList()); // create a route from the list of vertices and return it.
+        return frozen.leastCost(from, to);
     }
 
     	/**
@@ -326,22 +255,40 @@ public class AirRoutes implements Routes {
 	 * another
 	 */
     public Route leastHop(String from, String to) throws AirRoutesException {
-        if (!graph.containsVertex(from) || !graph.containsVertex(to)) {
-            throw new AirRoutesException("Airport does not exist!");
-        }
-        AllDirectedPaths<String, Flight> adp = new AllDirectedPaths<>(graph);
-        List<GraphPath<String, Flight>> allPaths;
-        int j = 1;
-        do {
-            allPaths = adp.getAllPaths(from, to, false, j);
-            j++;
-        } while (allPaths.isEmpty() && j < 100); // keep looking for the least changeover route while allPaths is empty
-                                                 // or the length of the path is less than 100 (just a dummy big number)
-        Iterator<GraphPath<String, Flight>> iter = allPaths.iterator();
-        if (iter.hasNext()) { // if there was a route found
-            return createRoute(iter.next().getVertexList()); // return the first route from the list
-        }
-        return null;
+        return frozen.leastHop(from, to);
+    }
+
+    /**
+     * Returns a cheapest flight route from one airport (airport code) to another,
+     * found by a given search engine
+     */
+    public Route leastCost(String from, String to, CostEngine engine) throws AirRoutesException {
+        return frozen.leastCost(from, to, engine);
+    }
+
+    /**
+     * Returns a cheapest flight route from one airport (airport code) to another,
+     * excluding a list of airport (airport codes), found by a given search engine
+     */
+    public Route leastCost(String from, String to, List<String> excluding, CostEngine engine) throws AirRoutesException {
+        return frozen.leastCost(from, to, excluding, engine);
+    }
+
+    /**
+     * Returns a least connections flight route from one airport (airport code) to
+     * another, found by a given search engine, or null if there is none
+     */
+    public Route leastHop(String from, String to, HopEngine engine) throws AirRoutesException {
+        return frozen.leastHop(from, to, engine);
+    }
+
+    /**
+     * Returns a least connections flight route from one airport (airport code) to
+     * another, excluding a list of airport (airport codes), found by a given search
+     * engine, or null if there is none
+     */
+    public Route leastHop(String from, String to, List<String> excluding, HopEngine engine) throws AirRoutesException {
+        return frozen.leastHop(from, to, excluding, engine);
     }
 
 	/**
@@ -350,22 +297,7 @@ public class AirRoutes implements Routes {
 	 */
 
     public Route leastCost(String from, String to, List<String> excluding) throws AirRoutesException {
-        if (!graph.containsVertex(from) || !graph.containsVertex(to)) {
-            throw new AirRoutesException("Airport does not exist!");
-        }
-        try {
-            FlightsParser fr = new FlightsParser(FlightsParser.MOREAIRLINECODES);
-            populateExcluding(fr.getAirports(), fr.getFlights(), excluding); // populate another graph excluding these airports
-            DijkstraShortestPath<String, Flight> dijkstraAlg = new DijkstraShortestPath<>(graphExclude); // cheapest path from the new graph
-            GraphPath<String, Flight> cheapestPaths = dijkstraAlg.getPath(from, to);
-            if (cheapestPaths == null) { // throw an exception if no path exists between two airports.
-                throw new AirRoutesException("No route exists between these two airports");
-            }
-            return createRoute(cheapestPaths.getVertexList()); // create a route from the list of vertices and return it.
-        } catch (FileNotFoundException | AirRoutesException e) {
-            System.out.println(e);
-        }
-        return null;
+        return frozen.leastCost(from, to, excluding);
     }
 
 	/**
@@ -373,21 +305,23 @@ public class AirRoutes implements Routes {
 	 * another, excluding a list of airport (airport codes)
 	 */
     public Route leastHop(String from, String to, List<String> excluding) throws AirRoutesException {
-        if (!graph.containsVertex(from) || !graph.containsVertex(to)) {
-            throw new AirRoutesException("Airport does not exist!");
-        }
-        AllDirectedPaths<String, Flight> adp = new AllDirectedPaths<>(graph);
-        List<GraphPath<String, Flight>> allPaths;
-        int j = 1;
-        do {
-            allPaths = adp.getAllPaths(from, to, false, j);
-            excludeAirports(allPaths, excluding); // remove routes that includes one of the airports to be excluded
-            j++;
-        } while (allPaths.isEmpty() && j<100);// keep looking for the least changeover route while allPaths is empty
-                                              // or the length of the path is less than 100 (just a dummy big number)
+        return frozen.leastHop(from, to, excluding);
+    }
+
+	/**
+	 * Returns a cheapest flight route for every query of a batch, in the order of
+	 * the queries, with the error of every query failing in its result
+	 */
+    public List<RouteResult> leastCostBatch(List<RouteQuery> queries) {
+        return frozen.leastCostBatch(queries);
+    }
 
-        Iterator<GraphPath<String, Flight>> iter = allPaths.iterator();
-        return createRoute(iter.next().getVertexList());
+	/**
+	 * Returns a least connections flight route for every query of a batch, in the
+	 * order of the queries, with the error of every query failing in its result
+	 */
+    public List<RouteResult> leastHopBatch(List<RouteQuery> queries) {
+        return frozen.leastHopBatch(queries);
     }
 
 	/**
@@ -396,24 +330,15 @@ public class AirRoutes implements Routes {
 	 * costs
 	 */
     public String leastCostMeetUp(String at1, String at2) throws AirRoutesException {
-        if (!graph.containsVertex(at1) || !graph.containsVertex(at2)) {
-            throw new AirRoutesException("Airport does not exist!");
-        }
-        DijkstraShortestPath<String, Flight> dijkstraAlg = new DijkstraShortestPath<>(graph);
-        HashMap<Double, String> prices = new HashMap<>(); // a map to store the cheapest route to every airport
-        for (String vertex : graph.vertexSet()) { // loop through all the airports
-            if (!vertex.equals(at1) && !vertex.equals(at2)) {
-                GraphPath<String, Flight> cheapest1 = dijkstraAlg.getPath(at1, vertex); //cheapest route from the first airport
-                GraphPath<String, Flight> cheapest2 = dijkstraAlg.getPath(at2, vertex); //cheapest route from the second airport
-                if (cheapest1 != null && cheapest2 != null) {
-                    Double price1 = cheapest1.getWeight(); // price of the cheapest route from the first airport
-                    Double price2 = cheapest2.getWeight(); // price of the cheapest route from the second airport
-                    prices.put(price1 + price2, vertex); // put the sum of the prices as the key and vertex as value
-                }
-            }
-        }
-        Double min = Collections.min(prices.keySet()); // get the smallest key (price)
-        return prices.get(min); // return the value (airport) of the smallest key (price)
+        return frozen.leastCostMeetUp(at1, at2);
+    }
+
+    /**
+     * Returns the cheapest costs from two airports (airport codes) to every airport,
+     * which can be used to rank the meet up airports of two people
+     */
+    public MeetUpCosts meetUpCosts(String at1, String at2) throws AirRoutesException {
+        return frozen.meetUpCosts(at1, at2);
     }
 
 	/**
@@ -422,24 +347,16 @@ public class AirRoutes implements Routes {
 	 * of connections
 	 */
     public String leastHopMeetUp(String at1, String at2) throws AirRoutesException {
-        if (!graph.containsVertex(at1) || !graph.containsVertex(at2)) {
-            throw new AirRoutesException("Airport does not exist!");
-        }
-        HashMap<Integer, String> hops = new HashMap<>(); // a map to store the least changeovers route to every airport
-        for (String vertex : graph.vertexSet()) { // loop through all the airports
-            if (!vertex.equals(at1) && !vertex.equals(at2)) {
-                Route r1 = leastHop(at1, vertex); //least hops route from the first airport
-                Route r2 = leastHop(at2, vertex); //least hops route from the second airport
-                if (r1!=null && r2!=null) {
-                    int h1 = r1.totalHop();
-                    int h2 = r2.totalHop();
-                    hops.put(h1 + h2, vertex); // put the sum of the hops of the two routes as the key and vertex as value
-                }
+        return frozen.leastHopMeetUp(at1, at2);
+    }
 
-            }
-        }
-        int min = Collections.min(hops.keySet()); // get the smallest key (hops)
-        return hops.get(min); // return the value (airport) of the smallest key (hops)
+    /**
+     * Returns a best airport for the meet up of two people located in two different
+     * airports (airport codes) accordingly to the number of connections, together
+     * with the least hops route of each person
+     */
+    public MeetUp leastHopMeetUpRoutes(String at1, String at2) throws AirRoutesException {
+        return frozen.leastHopMeetUpRoutes(at1, at2);
     }
 
 	/**
@@ -448,30 +365,24 @@ public class AirRoutes implements Routes {
 	 * given time
 	 */
     public String leastTimeMeetUp(String at1, String at2, String startTime) throws AirRoutesException {
-        if (!graph.containsVertex(at1) || !graph.containsVertex(at2)) {
-            throw new AirRoutesException("Airport does not exist!");
-        }
-        HashMap<Integer, String> leastTime = new HashMap<>(); // a map to store the least changeovers route to every airport
-        int t1, t2, waiting1, waiting2;
-        for (String vertex : graph.vertexSet()) { // loop through all the airports
-            if (!vertex.equals(at1) && !vertex.equals(at2)) {
-                Route r1 = earliestRoute(at1, vertex, startTime); //earliest route from the first airport
-                Route r2 = earliestRoute(at2, vertex, startTime); //earliest route from the second airport
-                if (r1!=null && r2!=null) {
-                    waiting1 = calcTime(startTime, getDepartureTime(r1.getStops())); // time between startTime and departure time
-                    waiting2 = calcTime(startTime, getDepartureTime(r2.getStops())); // time between startTime and departure time
-                    t1 = waiting1 + r1.totalTime(); // total time is waiting time plus the route's total time
-                    t2 = waiting2 + r2.totalTime();
-                    if (t1>t2) { // put latest (will arrive second) route in the map
-                        leastTime.put(t1, vertex); // put the time as the key and vertex as value
-                    } else {
-                        leastTime.put(t2, vertex);
-                    }
-                }
-            }
-        }
-        int min = Collections.min(leastTime.keySet()); // get the smallest key (time)
-        return leastTime.get(min); // return the value (airport) of the smallest key (time)
+        return frozen.leastTimeMeetUp(at1, at2, startTime);
+    }
+
+    /**
+     * Returns the flight routes from one airport (airport code) to another,
+     * excluding a list of airport (airport codes), that no other route beats on
+     * cost, number of connections and total travel time together, in increasing
+     * cost, creating at most maxLabels labels
+     */
+    public QueryResult<List<Route>> paretoRoutes(String from, String to, List<String> excluding, int maxLabels) throws AirRoutesException {
+        return frozen.paretoRoutes(from, to, excluding, maxLabels);
+    }
+
+    /**
+     * Same as above, also within the limits of some options
+     */
+    public QueryResult<List<Route>> paretoRoutes(String from, String to, List<String> excluding, int maxLabels, QueryOptions options) throws AirRoutesException {
+        return frozen.paretoRoutes(from, to, excluding, maxLabels, options);
     }
 
 	/**
@@ -481,37 +392,15 @@ public class AirRoutes implements Routes {
 	 */
 
     public List<Route> allRoutesCost(String from, String to, List<String> excluding, int maxCost) throws AirRoutesException {
-        if (!graph.containsVertex(from) || !graph.containsVertex(to)) {
-            throw new AirRoutesException("Airport does not exist!");
-        }
-        KShortestSimplePaths<String, Flight> kPaths = new KShortestSimplePaths<>(graph);
-        Boolean contains;
-        int k = 1;
-        List i = new ArrayList();
-        List<List> path_list = new ArrayList<>();
-        do {
-            contains = false;
-            List<GraphPath<String, Flight>> kp = kPaths.getPaths(from, to, k);
-            Iterator<GraphPath<String, Flight>> iter = kp.listIterator(k - 1); // iterator for the last route in the K cheapest routes
-            while (iter.hasNext()) {
-                i = iter.next().getVertexList();
-                for (String exclude : excluding) {
-                    if (i.contains(exclude)) { // Exclude the airports
-                        contains = true;
-                    }
-                }
-                if (!contains && totalPrice(i) <= maxCost) { // if the route not have excluded airports and price less than maxCost
-                    path_list.add(i);
-                }
-                contains = false; // set contains back to false
-            }
-            k++; // increment K to get the next cheapest route
-        } while (totalPrice(i) <= maxCost); // keep searching for routes while the route's price is less than the max cost
-        List<Route> routes = new ArrayList<>();
-        for (List path : path_list) { // creata a list of routes from the list of paths
-            routes.add(createRoute(path));
-        }
-        return routes;
+        return frozen.allRoutesCost(from, to, excluding, maxCost);
+    }
+
+	/**
+	 * Returns the flight routes lazily, in increasing price cost, from one airport
+	 * (airport code) to another, excluding a list of airport (airport codes)
+	 */
+    public Stream<Route> routesCost(String from, String to, List<String> excluding) throws AirRoutesException {
+        return frozen.routesCost(from, to, excluding);
     }
 
 	/**
@@ -520,30 +409,138 @@ public class AirRoutes implements Routes {
 	 * list of airport (airport codes)
 	 */
     public List<Route> allRoutesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException {
-        if (!graph.containsVertex(from) || !graph.containsVertex(to)) {
-            throw new AirRoutesException("Airport does not exist!");
-        }
-        AllDirectedPaths<String, Flight> adp = new AllDirectedPaths<>(graph);
-        List<GraphPath<String, Flight>> allPaths;
-        allPaths = adp.getAllPaths(from, to, false, maxHop);
-        excludeAirports(allPaths, excluding);
-
-        // order the routes in increasing number of hops
-        List<List> paths = new ArrayList<>();
-        int i = 2;
-        while (i <= maxHop + 1) { // search for routes while i less than the maxHop+1 (plus one because one edge path is two airports which is one hop)
-            for (GraphPath<String, Flight> path : allPaths) {
-                if (path.getVertexList().size() == i) {
-                    paths.add(path.getVertexList());
-                }
-            }
-            i++;
-        }
-        List<Route> routes = new ArrayList<>();
-        for (List path : paths) { // create a list of routes from the list of paths
-            routes.add(createRoute(path));
-        }
-        return routes;
+        return frozen.allRoutesHop(from, to, excluding, maxHop);
+    }
+
+	/**
+	 * Returns the flights routes lazily, in increasing number of hops, below or
+	 * equal to a given number of hops, from one airport (airport code) to another,
+	 * excluding a list of airport (airport codes)
+	 */
+    public Stream<Route> routesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException {
+        return frozen.routesHop(from, to, excluding, maxHop);
+    }
+
+    /**
+     * Returns a cheapest flight route from one airport (airport code) to another,
+     * excluding a list of airport (airport codes), within the limits of some
+     * options
+     */
+    public QueryResult<Route> leastCost(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException {
+        return frozen.leastCost(from, to, excluding, options);
+    }
+
+    /**
+     * Returns a least connections flight route from one airport (airport code) to
+     * another, excluding a list of airport (airport codes), within the limits of
+     * some options
+     */
+    public QueryResult<Route> leastHop(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException {
+        return frozen.leastHop(from, to, excluding, options);
+    }
+
+    /**
+     * Returns a cheapest flight route for every query of a batch, in the order of
+     * the queries, within the limits of some options
+     */
+    public QueryResult<List<RouteResult>> leastCostBatch(List<RouteQuery> queries, QueryOptions options) {
+        return frozen.leastCostBatch(queries, options);
+    }
+
+    /**
+     * Returns a least connections flight route for every query of a batch, in the
+     * order of the queries, within the limits of some options
+     */
+    public QueryResult<List<RouteResult>> leastHopBatch(List<RouteQuery> queries, QueryOptions options) {
+        return frozen.leastHopBatch(queries, options);
+    }
+
+    /**
+     * Returns the airport code of a best airport for the meet up of two people
+     * accordingly to the routes costs, within the limits of some options
+     */
+    public QueryResult<String> leastCostMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException {
+        return frozen.leastCostMeetUp(at1, at2, options);
+    }
+
+    /**
+     * Returns the airport code of a best airport for the meet up of two people
+     * accordingly to the number of connections, within the limits of some options
+     */
+    public QueryResult<String> leastHopMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException {
+        return frozen.leastHopMeetUp(at1, at2, options);
+    }
+
+    /**
+     * Returns the airport code of a best airport for the earliest meet up of two
+     * people departing at a given time, within the limits of some options
+     */
+    public QueryResult<String> leastTimeMeetUp(String at1, String at2, String startTime, QueryOptions options) throws AirRoutesException {
+        return frozen.leastTimeMeetUp(at1, at2, startTime, options);
+    }
+
+    /**
+     * Returns the flight routes, in increasing price cost, below or equal to a
+     * given price, from one airport (airport code) to another, excluding a list of
+     * airport (airport codes), within the limits of some options
+     */
+    public QueryResult<List<Route>> allRoutesCost(String from, String to, List<String> excluding, int maxCost, QueryOptions options) throws AirRoutesException {
+        return frozen.allRoutesCost(from, to, excluding, maxCost, options);
+    }
+
+    /**
+     * Returns the flights routes, in increasing number of hops, below or equal to a
+     * given number of hops, from one airport (airport code) to another, excluding a
+     * list of airport (airport codes), within the limits of some options
+     */
+    public QueryResult<List<Route>> allRoutesHop(String from, String to, List<String> excluding, int maxHop, QueryOptions options) throws AirRoutesException {
+        return frozen.allRoutesHop(from, to, excluding, maxHop, options);
+    }
+
+    /**
+     * Precomputes the least cost and least hops routes between every pair of
+     * airports, so that {@link #leastCost(String, String)} and
+     * {@link #leastHop(String, String)} become table lookups until the next
+     * populate or update
+     */
+    public void precompute() throws AirRoutesException {
+        frozen = frozen.precompute();
+    }
+
+    /**
+     * Same as above, the routes being kept in a memory-mapped file for the airline
+     * codes the graph was populated with, reused by the next processes as long as
+     * the dataset and the airline codes are the same
+     */
+    public void precompute(File file, String[] includeAirlineCodes) throws FileNotFoundException, AirRoutesException {
+        frozen = frozen.precompute(file, FlightsParser.checksum(includeAirlineCodes));
+    }
+
+    /**
+     * Builds the contraction hierarchy of the flights, answering
+     * {@link #leastCost(String, String)} by two small upward searches until the next
+     * populate or update. Returns the hierarchy, which can be written to a file and
+     * read back by the next processes.
+     */
+    public ContractionHierarchy contract() throws AirRoutesException {
+        frozen = frozen.contract();
+        return frozen.getHierarchy();
+    }
+
+    /**
+     * Same as above with a hierarchy built earlier from the same flights, see
+     * {@link ContractionHierarchy#read(File)}
+     */
+    public void contract(ContractionHierarchy hierarchy) throws AirRoutesException {
+        frozen = frozen.contract(hierarchy);
+    }
+
+    /**
+     * Returns the read-only copy of the graph as populated so far. It is not changed
+     * by later populates, so it can be queried from any number of threads.
+     */
+    public FrozenRoutes freeze() {
+        return frozen;
     }
 
     /* MAIN METHOD */
@@ -552,7 +549,7 @@ public class AirRoutes implements Routes {
         try {
             FlightsParser fr = new FlightsParser(FlightsParser.MOREAIRLINECODES);
 //            FlightsReader fr = new FlightsReader(FlightsReader.AIRLINECODES);
-            sr.populate(fr.getAirlines(), fr.getAirports(), fr.getFlights()); // populate the graph
+            sr.populate(fr.getAirlines(), fr.getAirports(), fr.getFlightTable()); // populate the graph
 
             Scanner s = new Scanner(System.in);
             String command; // option the user chooses
@@ -617,7 +614,6 @@ public class AirRoutes implements Routes {
                         String exclude = s.nextLine();
                         // split the airports to be excluded on spaces and put in them in a list
                         List<String> l = new ArrayList<>(Arrays.asList(exclude.split(" ")));
-                        sr.populate(fr.getAirlines(), fr.getAirports(), fr.getFlights());
                         route = sr.leastCost(ap1, ap2, l);
                         System.out.println("Cheapest route from " + ap1 + " to " + ap2 + " excluding ( " + exclude + " ): ");
                         sr.displayData(route);
@@ -707,20 +703,19 @@ public class AirRoutes implements Routes {
                         sr.readAirports("first", "second");
                         ap1 = sr.getAp1();
                         ap2 = sr.getAp2();
-                        String meetUp_airport = sr.leastHopMeetUp(ap1, ap2);
+                        MeetUp hopMeetUp = sr.leastHopMeetUpRoutes(ap1, ap2);
+                        String meetUp_airport = hopMeetUp.getAirport();
                         System.out.println("Least hop meet up airport for " + ap1 + " and " + ap2 + " is " + meetUp_airport);
 
                         // print the least hops route from the first airport to the meetup airport
                         System.out.println();
                         System.out.println("Route for " + ap1 + " to " + meetUp_airport);
-                        route = sr.leastHop(ap1, meetUp_airport);
-                        sr.displayData(route);
+                        sr.displayData(hopMeetUp.getRoute1());
 
                         // print the least hops route from the second airport to the meetup airport
                         System.out.println();
                         System.out.println("Route for " + ap2 + " to " + meetUp_airport);
-                        route = sr.leastHop(ap2, meetUp_airport);
-                        sr.displayData(route);
+                        sr.displayData(hopMeetUp.getRoute2());
                         System.out.println("Press any key to continue.");
                         command = s.nextLine();
                         break;
@@ -0,0 +1,98 @@
+package AirMaps;
+
+import java.util.Arrays;
+
+// a binary min-heap of airport indexes keyed by a cost, supporting decrease key.
+// used by the Dijkstra searches over the flight network, without boxing or per-entry objects.
+class AirportHeap {
+    private final int[] heap; // airports in heap order
+    private final int[] position; // position of every airport in the heap, -1 if it is not in the heap
+    private final double[] key; // cost of every airport in the heap
+    private int size;
+
+    AirportHeap(int airports) {
+        heap = new int[airports];
+        position = new int[airports];
+        key = new double[airports];
+        Arrays.fill(position, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // returns the lowest cost in the heap, which must not be empty
+    double minCost() {
+        return key[heap[0]];
+    }
+
+    // removes every airport, so the heap can be used by another search
+    void clear() {
+        while (size > 0) {
+            position[heap[--size]] = -1;
+        }
+    }
+
+    // inserts an airport, or lowers its cost if it is already in the heap with a higher one
+    void push(int airport, double cost) {
+        int i = position[airport];
+        if (i < 0) {
+            i = size++;
+            heap[i] = airport;
+            position[airport] = i;
+        } else if (cost >= key[airport]) {
+            return;
+        }
+        key[airport] = cost;
+        up(i);
+    }
+
+    // removes and returns the airport with the lowest cost
+    int pop() {
+        int top = heap[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            down(0);
+        }
+        return top;
+    }
+
+    private void up(int i) {
+        int airport = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (key[heap[parent]] <= key[airport]) {
+                break;
+            }
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = airport;
+        position[airport] = i;
+    }
+
+    private void down(int i) {
+        int airport = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) {
+                child++;
+            }
+            if (key[heap[child]] >= key[airport]) {
+                break;
+            }
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = airport;
+        position[airport] = i;
+    }
+}
@@ -0,0 +1,277 @@
+package AirMaps;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Routes} remembering the answers of another one, for the same queries
+ * asked again and again. Answers are keyed by method, airports, the set of
+ * excluded airports and the limits. At most a given number of answers are kept,
+ * and the one least recently used is evicted first. "No route" errors are kept
+ * too, since asking again would fail the same way.
+ *
+ * A populate or an update through this class clears the cache. If the routes
+ * are changed another way, {@link #invalidate()} must be called. The lazy streams,
+ * the batches and the queries with {@link QueryOptions}, whose answers may be
+ * incomplete, are not cached. This class is thread-safe if the routes it wraps
+ * are.
+ */
+public class CachingRoutes implements Routes {
+    private final Routes routes;
+    private final int maxSize;
+    private final LinkedHashMap<List<Object>, Answer> answers; // in access order, guarded by itself
+    private long generation; // incremented by every invalidation, guarded by answers
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
+    private final MetricsRegistry metrics; // also counting the hits and misses by operation, null if none
+
+    // the value returned or the error thrown by a query
+    private static class Answer {
+        private final Object value;
+        private final AirRoutesException error;
+
+        private Answer(Object value, AirRoutesException error) {
+            this.value = value;
+            this.error = error;
+        }
+    }
+
+    // a query of the wrapped routes
+    private interface Query<T> {
+        T run() throws AirRoutesException;
+    }
+
+    /** Caches the answers of some routes, keeping at most maxSize of them */
+    public CachingRoutes(Routes routes, int maxSize) {
+        this(routes, maxSize, null);
+    }
+
+    /**
+     * Same as above, also counting the hits and misses of every operation in a
+     * metrics registry
+     */
+    public CachingRoutes(Routes routes, int maxSize, MetricsRegistry metrics) {
+        this.routes = routes;
+        this.maxSize = maxSize;
+        this.metrics = metrics;
+        this.answers = new LinkedHashMap<List<Object>, Answer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Answer> eldest) {
+                if (size() > CachingRoutes.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // returns the answer of a query from the cache, or asks the wrapped routes and keeps their answer
+    @SuppressWarnings("unchecked")
+    private <T> T cached(Query<T> query, Object... key) throws AirRoutesException {
+        List<Object> k = Arrays.asList(key);
+        Answer answer;
+        long asked;
+        synchronized (answers) {
+            answer = answers.get(k);
+            asked = generation;
+        }
+        if (answer == null) {
+            misses.incrementAndGet();
+            if (metrics != null) {
+                metrics.operation((String) key[0]).cacheMiss();
+            }
+            try {
+                answer = new Answer(query.run(), null);
+            } catch (AirRoutesException e) {
+                answer = new Answer(null, e);
+            }
+            synchronized (answers) {
+                if (asked == generation) { // an answer from before an invalidation is not kept
+                    answers.put(k, answer);
+                }
+            }
+        } else {
+            hits.incrementAndGet();
+            if (metrics != null) {
+                metrics.operation((String) key[0]).cacheHit();
+            }
+        }
+        if (answer.error != null) {
+            throw answer.error;
+        }
+        return (T) answer.value;
+    }
+
+    // the excluded airports as a key, their order and repetitions not changing the routes
+    private static Set<String> excluded(List<String> excluding) {
+        return new TreeSet<>(excluding);
+    }
+
+    /** Removes every answer, to be called when the wrapped routes change */
+    public void invalidate() {
+        synchronized (answers) {
+            answers.clear();
+            generation++;
+        }
+    }
+
+    /** Returns the number of queries answered from the cache */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** Returns the number of queries answered by the wrapped routes */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** Returns the number of answers evicted to stay within the maximum size */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /** Returns the number of answers kept */
+    public int size() {
+        synchronized (answers) {
+            return answers.size();
+        }
+    }
+
+    /**
+     * Populates the wrapped routes with the airlines, airports and flights
+     * information and clears the cache. Returns true if the operation was
+     * successful.
+     */
+    public boolean populate(HashSet<String[]> airlines, HashSet<String[]> airports, HashSet<String[]> routes) {
+        try {
+            return this.routes.populate(airlines, airports, routes);
+        } finally {
+            invalidate();
+        }
+    }
+
+    /**
+     * Applies changes to the flights of the wrapped routes and clears the cache.
+     * Returns true if the flights changed.
+     */
+    public boolean update(FlightUpdates updates) throws AirRoutesException {
+        try {
+            return routes.update(updates);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public Route leastCost(String from, String to) throws AirRoutesException {
+        return cached(() -> routes.leastCost(from, to), "leastCost", from, to);
+    }
+
+    @Override
+    public Route leastHop(String from, String to) throws AirRoutesException {
+        return cached(() -> routes.leastHop(from, to), "leastHop", from, to);
+    }
+
+    @Override
+    public Route leastCost(String from, String to, List<String> excluding) throws AirRoutesException {
+        return cached(() -> routes.leastCost(from, to, excluding), "leastCost", from, to, excluded(excluding));
+    }
+
+    @Override
+    public Route leastHop(String from, String to, List<String> excluding) throws AirRoutesException {
+        return cached(() -> routes.leastHop(from, to, excluding), "leastHop", from, to, excluded(excluding));
+    }
+
+    @Override
+    public List<RouteResult> leastCostBatch(List<RouteQuery> queries) {
+        return routes.leastCostBatch(queries);
+    }
+
+    @Override
+    public List<RouteResult> leastHopBatch(List<RouteQuery> queries) {
+        return routes.leastHopBatch(queries);
+    }
+
+    @Override
+    public String leastCostMeetUp(String at1, String at2) throws AirRoutesException {
+        return cached(() -> routes.leastCostMeetUp(at1, at2), "leastCostMeetUp", at1, at2);
+    }
+
+    @Override
+    public String leastHopMeetUp(String at1, String at2) throws AirRoutesException {
+        return cached(() -> routes.leastHopMeetUp(at1, at2), "leastHopMeetUp", at1, at2);
+    }
+
+    @Override
+    public String leastTimeMeetUp(String at1, String at2, String startTime) throws AirRoutesException {
+        return cached(() -> routes.leastTimeMeetUp(at1, at2, startTime), "leastTimeMeetUp", at1, at2, startTime);
+    }
+
+    @Override
+    public List<Route> allRoutesCost(String from, String to, List<String> excluding, int maxCost) throws AirRoutesException {
+        return cached(() -> Collections.unmodifiableList(routes.allRoutesCost(from, to, excluding, maxCost)),
+                "allRoutesCost", from, to, excluded(excluding), maxCost);
+    }
+
+    @Override
+    public Stream<Route> routesCost(String from, String to, List<String> excluding) throws AirRoutesException {
+        return routes.routesCost(from, to, excluding);
+    }
+
+    @Override
+    public List<Route> allRoutesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException {
+        return cached(() -> Collections.unmodifiableList(routes.allRoutesHop(from, to, excluding, maxHop)),
+                "allRoutesHop", from, to, excluded(excluding), maxHop);
+    }
+
+    @Override
+    public Stream<Route> routesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException {
+        return routes.routesHop(from, to, excluding, maxHop);
+    }
+
+    @Override
+    public QueryResult<Route> leastCost(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException {
+        return routes.leastCost(from, to, excluding, options);
+    }
+
+    @Override
+    public QueryResult<Route> leastHop(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException {
+        return routes.leastHop(from, to, excluding, options);
+    }
+
+    @Override
+    public QueryResult<List<RouteResult>> leastCostBatch(List<RouteQuery> queries, QueryOptions options) {
+        return routes.leastCostBatch(queries, options);
+    }
+
+    @Override
+    public QueryResult<List<RouteResult>> leastHopBatch(List<RouteQuery> queries, QueryOptions options) {
+        return routes.leastHopBatch(queries, options);
+    }
+
+    @Override
+    public QueryResult<String> leastCostMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException {
+        return routes.leastCostMeetUp(at1, at2, options);
+    }
+
+    @Override
+    public QueryResult<String> leastHopMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException {
+        return routes.leastHopMeetUp(at1, at2, options);
+    }
+
+    @Override
+    public QueryResult<String> leastTimeMeetUp(String at1, String at2, String startTime, QueryOptions options) throws AirRoutesException {
+        return routes.leastTimeMeetUp(at1, at2, startTime, options);
+    }
+
+    @Override
+    public QueryResult<List<Route>> allRoutesCost(String from, String to, List<String> excluding, int maxCost, QueryOptions options) throws AirRoutesException {
+        return routes.allRoutesCost(from, to, excluding, maxCost, options);
+    }
+
+    @Override
+    public QueryResult<List<Route>> allRoutesHop(String from, String to, List<String> excluding, int maxHop, QueryOptions options) throws AirRoutesException {
+        return routes.allRoutesHop(from, to, excluding, maxHop, options);
+    }
+}
@@ -0,0 +1,143 @@
+package AirMaps;
+
+import java.util.*;
+
+// enumerates the routes from one airport to another lazily in increasing cost (Yen's k shortest paths).
+// every route visits an airport at most once and takes the cheapest flight of every leg. each call to next()
+// only extends the search from the route returned last, the excluded airports are never expanded, and the
+// enumeration ends as soon as the next route would cost more than maxCost.
+class CheapestRoutes implements Iterator<FlightRoute> {
+
+    // a route found by the search
+    private static class Path {
+        private final int[] flights; // flight indexes of the legs
+        private final int[] stops; // airport indexes, one more than the flights
+        private final double cost;
+
+        private Path(int[] flights, int[] stops, double cost) {
+            this.flights = flights;
+            this.stops = stops;
+            this.cost = cost;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Path && Arrays.equals(stops, ((Path) o).stops);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(stops);
+        }
+    }
+
+    private final FlightNetwork network;
+    private final CostSearch costSearch;
+    private final int from, to;
+    private final boolean[] excluded;
+    private final double maxCost;
+    private final List<Path> found = new ArrayList<>(); // routes already returned, in increasing cost
+    private final PriorityQueue<Path> candidates = new PriorityQueue<>(Comparator.comparingDouble((Path p) -> p.cost));
+    private final Set<Path> seen = new HashSet<>(); // routes returned or waiting in the candidates
+    private Path next; // the next route to return, null if not computed yet
+    private boolean started, finished;
+
+    CheapestRoutes(FlightNetwork network, CostSearch costSearch, int from, int to, boolean[] excluded, double maxCost) {
+        this.network = network;
+        this.costSearch = costSearch;
+        this.from = from;
+        this.to = to;
+        this.excluded = excluded;
+        this.maxCost = maxCost;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            next = advance();
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public FlightRoute next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SearchEffort.enumerated();
+        Path p = next;
+        next = null;
+        List<Flight> legs = new ArrayList<>(p.flights.length);
+        for (int e : p.flights) {
+            legs.add(network.flight(e));
+        }
+        return new FlightRoute(network.airport(from), legs);
+    }
+
+    // finds the next cheapest route, or returns null if there are no more within maxCost
+    private Path advance() {
+        if (!started) {
+            started = true;
+            if (excluded[from] || excluded[to]) {
+                return null;
+            }
+            Path first = spur(new int[0], new int[] { from }, 0, new boolean[network.airportCount()]);
+            if (first != null) {
+                seen.add(first);
+                found.add(first);
+            }
+            return first;
+        }
+        Path last = found.get(found.size() - 1);
+        // every airport of the last route but the arrival one is a spur airport: the new candidates follow the
+        // last route up to it, then leave it by a flight no route found so far takes after the same stops
+        double rootCost = 0;
+        for (int i = 0; i < last.flights.length; i++) {
+            QueryOptions.checkpoint(); // every spur airport runs a search
+            int[] rootStops = Arrays.copyOf(last.stops, i + 1);
+            boolean[] blocked = new boolean[network.airportCount()];
+            for (Path p : found) {
+                if (p.stops.length > i + 1 && Arrays.equals(p.stops, 0, i + 1, rootStops, 0, i + 1)) {
+                    blocked[p.stops[i + 1]] = true;
+                }
+            }
+            Path candidate = spur(Arrays.copyOf(last.flights, i), rootStops, rootCost, blocked);
+            if (candidate != null && seen.add(candidate)) {
+                candidates.add(candidate);
+            }
+            rootCost += network.price(last.flights[i]);
+        }
+        Path best = candidates.poll();
+        if (best != null) {
+            found.add(best);
+        }
+        return best;
+    }
+
+    // returns the root route extended by the cheapest route from its last airport to the arrival airport that
+    // avoids the root airports and the blocked first flights, or null if there is none within maxCost
+    private Path spur(int[] rootFlights, int[] rootStops, double rootCost, boolean[] blocked) {
+        int spur = rootStops[rootStops.length - 1];
+        boolean[] avoid = excluded.clone();
+        for (int i = 0; i < rootStops.length - 1; i++) {
+            avoid[rootStops[i]] = true;
+        }
+        CostSearch.Tree tree = costSearch.getTree(spur, to, avoid, blocked, maxCost - rootCost);
+        if (!tree.reaches(to) || rootCost + tree.cost(to) > maxCost) {
+            return null;
+        }
+        LinkedList<Integer> spurFlights = new LinkedList<>();
+        for (int a = to; a != spur; a = network.source(tree.via(a))) {
+            spurFlights.addFirst(tree.via(a));
+        }
+        int[] flights = Arrays.copyOf(rootFlights, rootFlights.length + spurFlights.size());
+        int[] stops = Arrays.copyOf(rootStops, flights.length + 1);
+        int i = rootFlights.length;
+        for (int e : spurFlights) {
+            flights[i] = e;
+            stops[++i] = network.target(e);
+        }
+        return new Path(flights, stops, rootCost + tree.cost(to));
+    }
+}
@@ -0,0 +1,290 @@
+package AirMaps;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A thread-safe {@link Routes} for serving queries from many threads (or virtual
+ * threads) against one loaded network. Every query runs on the current
+ * {@link FrozenRoutes}, read from a volatile field and never locked, so queries do
+ * not wait for each other nor for a populate. A populate adds the flights to a
+ * private graph under a lock, then publishes a new FrozenRoutes: queries already
+ * running finish on the previous one.
+ */
+public class ConcurrentRoutes implements Routes {
+    private final AirRoutes builder = new AirRoutes(); // the graph as populated so far, guarded by this
+    private volatile FrozenRoutes current = builder.freeze(); // the routes the queries run on
+
+    /** Returns the routes the queries currently run on, which later populates do not change */
+    public FrozenRoutes freeze() {
+        return current;
+    }
+
+    /**
+     * Populates the graph with the airlines, airports and flights information.
+     * Returns true if the operation was successful.
+     */
+    public synchronized boolean populate(HashSet<String[]> airlines, HashSet<String[]> airports, HashSet<String[]> routes) {
+        FlightTable table;
+        try {
+            table = FlightTable.of(routes);
+        } catch (IllegalArgumentException e) { // a time or price that is not one, nothing is added
+            return false;
+        }
+        return populate(airlines, airports, table);
+    }
+
+    /**
+     * Populates the graph with the airlines, airports and flights information, the
+     * flights being already parsed by {@link FlightsParser#getFlightTable()}.
+     * Returns true if the operation was successful.
+     */
+    public synchronized boolean populate(HashSet<String[]> airlines, HashSet<String[]> airports, FlightTable routes) {
+        boolean populated = builder.populate(airlines, airports, routes);
+        current = builder.freeze();
+        return populated;
+    }
+
+    /**
+     * Populates the graph with the airports and flights of a snapshot.
+     * Returns true if the operation was successful.
+     */
+    public synchronized boolean populate(NetworkSnapshot snapshot) {
+        boolean populated = builder.populate(snapshot);
+        current = builder.freeze();
+        return populated;
+    }
+
+    /**
+     * Applies changes to the flights, all together or not at all. The queries see
+     * either the old or the new flights. Returns true if the flights changed.
+     */
+    public synchronized boolean update(FlightUpdates updates) throws AirRoutesException {
+        boolean changed = builder.update(updates);
+        current = builder.freeze();
+        return changed;
+    }
+
+    /**
+     * Precomputes the least cost and least hops routes between every pair of
+     * airports, answering these queries by table lookups until the next populate
+     * or update
+     */
+    public synchronized void precompute() throws AirRoutesException {
+        builder.precompute();
+        current = builder.freeze();
+    }
+
+    /**
+     * Same as above, the routes being kept in a memory-mapped file for the airline
+     * codes the graph was populated with
+     */
+    public synchronized void precompute(File file, String[] includeAirlineCodes) throws FileNotFoundException, AirRoutesException {
+        builder.precompute(file, includeAirlineCodes);
+        current = builder.freeze();
+    }
+
+    /**
+     * Builds the contraction hierarchy of the flights, answering the least cost
+     * queries with it until the next populate or update. Returns the hierarchy.
+     */
+    public synchronized ContractionHierarchy contract() throws AirRoutesException {
+        ContractionHierarchy hierarchy = builder.contract();
+        current = builder.freeze();
+        return hierarchy;
+    }
+
+    /** Same as above with a hierarchy built earlier from the same flights */
+    public synchronized void contract(ContractionHierarchy hierarchy) throws AirRoutesException {
+        builder.contract(hierarchy);
+        current = builder.freeze();
+    }
+
+    /**
+     * Returns the flights from one airport (airport code) to another, in increasing
+     * departure time
+     */
+    public List<Flight> getFlights(String from, String to) {
+        return current.getFlights(from, to);
+    }
+
+    @Override
+    public Route leastCost(String from, String to) throws AirRoutesException {
+        return current.leastCost(from, to);
+    }
+
+    /**
+     * Returns a cheapest flight route from one airport (airport code) to another,
+     * found by a given search engine
+     */
+    public Route leastCost(String from, String to, CostEngine engine) throws AirRoutesException {
+        return current.leastCost(from, to, engine);
+    }
+
+    /**
+     * Returns a cheapest flight route from one airport (airport code) to another,
+     * excluding a list of airport (airport codes), found by a given search engine
+     */
+    public Route leastCost(String from, String to, List<String> excluding, CostEngine engine) throws AirRoutesException {
+        return current.leastCost(from, to, excluding, engine);
+    }
+
+    /**
+     * Returns a least connections flight route from one airport (airport code) to
+     * another, found by a given search engine, or null if there is none
+     */
+    public Route leastHop(String from, String to, HopEngine engine) throws AirRoutesException {
+        return current.leastHop(from, to, engine);
+    }
+
+    /**
+     * Returns a least connections flight route from one airport (airport code) to
+     * another, excluding a list of airport (airport codes), found by a given search
+     * engine, or null if there is none
+     */
+    public Route leastHop(String from, String to, List<String> excluding, HopEngine engine) throws AirRoutesException {
+        return current.leastHop(from, to, excluding, engine);
+    }
+
+    @Override
+    public Route leastHop(String from, String to) throws AirRoutesException {
+        return current.leastHop(from, to);
+    }
+
+    @Override
+    public Route leastCost(String from, String to, List<String> excluding) throws AirRoutesException {
+        return current.leastCost(from, to, excluding);
+    }
+
+    @Override
+    public Route leastHop(String from, String to, List<String> excluding) throws AirRoutesException {
+        return current.leastHop(from, to, excluding);
+    }
+
+    @Override
+    public List<RouteResult> leastCostBatch(List<RouteQuery> queries) {
+        return current.leastCostBatch(queries);
+    }
+
+    @Override
+    public List<RouteResult> leastHopBatch(List<RouteQuery> queries) {
+        return current.leastHopBatch(queries);
+    }
+
+    @Override
+    public String leastCostMeetUp(String at1, String at2) throws AirRoutesException {
+        return current.leastCostMeetUp(at1, at2);
+    }
+
+    /**
+     * Returns the cheapest costs from two airports (airport codes) to every airport,
+     * which can be used to rank the meet up airports of two people
+     */
+    public MeetUpCosts meetUpCosts(String at1, String at2) throws AirRoutesException {
+        return current.meetUpCosts(at1, at2);
+    }
+
+    @Override
+    public String leastHopMeetUp(String at1, String at2) throws AirRoutesException {
+        return current.leastHopMeetUp(at1, at2);
+    }
+
+    /**
+     * Returns a best airport for the meet up of two people located in two different
+     * airports (airport codes) accordingly to the number of connections, together
+     * with the least hops route of each person
+     */
+    public MeetUp leastHopMeetUpRoutes(String at1, String at2) throws AirRoutesException {
+        return current.leastHopMeetUpRoutes(at1, at2);
+    }
+
+    @Override
+    public String leastTimeMeetUp(String at1, String at2, String startTime) throws AirRoutesException {
+        return current.leastTimeMeetUp(at1, at2, startTime);
+    }
+
+    /**
+     * Returns the flight routes from one airport (airport code) to another,
+     * excluding a list of airport (airport codes), that no other route beats on
+     * cost, number of connections and total travel time together, in increasing
+     * cost, creating at most maxLabels labels
+     */
+    public QueryResult<List<Route>> paretoRoutes(String from, String to, List<String> excluding, int maxLabels) throws AirRoutesException {
+        return current.paretoRoutes(from, to, excluding, maxLabels);
+    }
+
+    /**
+     * Same as above, also within the limits of some options
+     */
+    public QueryResult<List<Route>> paretoRoutes(String from, String to, List<String> excluding, int maxLabels, QueryOptions options) throws AirRoutesException {
+        return current.paretoRoutes(from, to, excluding, maxLabels, options);
+    }
+
+    @Override
+    public List<Route> allRoutesCost(String from, String to, List<String> excluding, int maxCost) throws AirRoutesException {
+        return current.allRoutesCost(from, to, excluding, maxCost);
+    }
+
+    @Override
+    public Stream<Route> routesCost(String from, String to, List<String> excluding) throws AirRoutesException {
+        return current.routesCost(from, to, excluding);
+    }
+
+    @Override
+    public List<Route> allRoutesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException {
+        return current.allRoutesHop(from, to, excluding, maxHop);
+    }
+
+    @Override
+    public Stream<Route> routesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException {
+        return current.routesHop(from, to, excluding, maxHop);
+    }
+
+    @Override
+    public QueryResult<Route> leastCost(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException {
+        return current.leastCost(from, to, excluding, options);
+    }
+
+    @Override
+    public QueryResult<Route> leastHop(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException {
+        return current.leastHop(from, to, excluding, options);
+    }
+
+    @Override
+    public QueryResult<List<RouteResult>> leastCostBatch(List<RouteQuery> queries, QueryOptions options) {
+        return current.leastCostBatch(queries, options);
+    }
+
+    @Override
+    public QueryResult<List<RouteResult>> leastHopBatch(List<RouteQuery> queries, QueryOptions options) {
+        return current.leastHopBatch(queries, options);
+    }
+
+    @Override
+    public QueryResult<String> leastCostMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException {
+        return current.leastCostMeetUp(at1, at2, options);
+    }
+
+    @Override
+    public QueryResult<String> leastHopMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException {
+        return current.leastHopMeetUp(at1, at2, options);
+    }
+
+    @Override
+    public QueryResult<String> leastTimeMeetUp(String at1, String at2, String startTime, QueryOptions options) throws AirRoutesException {
+        return current.leastTimeMeetUp(at1, at2, startTime, options);
+    }
+
+    @Override
+    public QueryResult<List<Route>> allRoutesCost(String from, String to, List<String> excluding, int maxCost, QueryOptions options) throws AirRoutesException {
+        return current.allRoutesCost(from, to, excluding, maxCost, options);
+    }
+
+    @Override
+    public QueryResult<List<Route>> allRoutesHop(String from, String to, List<String> excluding, int maxHop, QueryOptions options) throws AirRoutesException {
+        return current.allRoutesHop(from, to, excluding, maxHop, options);
+    }
+}
@@ -0,0 +1,96 @@
+package AirMaps;
+
+import java.util.*;
+
+// earliest arrival search over the daily timetable of the flights (Connection Scan).
+// the flights are sorted once by departure time, then every search is a linear sweep over them,
+// repeated for the following days until no arrival time can be improved anymore.
+class ConnectionScan {
+    private static final int DAY = 24 * 60;
+
+    private final FlightNetwork network;
+    private final int[] flights; // flight indexes sorted by departure time
+    private final int[] from, to; // departure and arrival airport of every sorted flight
+    private final int[] departure, duration; // departure minute and duration of every sorted flight
+
+    ConnectionScan(FlightNetwork network) {
+        this.network = network;
+        int n = network.flightCount();
+        Integer[] sorted = new Integer[n];
+        for (int e = 0; e < n; e++) {
+            sorted[e] = e;
+        }
+        Arrays.sort(sorted, Comparator.comparingInt(network::departure));
+        flights = new int[n];
+        from = new int[n];
+        to = new int[n];
+        departure = new int[n];
+        duration = new int[n];
+        for (int i = 0; i < n; i++) {
+            int e = sorted[i];
+            flights[i] = e;
+            from[i] = network.source(e);
+            to[i] = network.target(e);
+            departure[i] = network.departure(e);
+            duration[i] = Flight.minutesBetween(network.departure(e), network.arrival(e));
+        }
+    }
+
+    // the earliest arrival at every airport when leaving one airport at a given time
+    class Arrivals {
+        private final int start; // starting time in minutes after midnight
+        private final int[] arrival; // earliest arrival in minutes after midnight of the first day, MAX_VALUE if unreachable
+        private final int[] via; // the flight taken to reach every airport, -1 if none
+
+        private Arrivals(int origin, int start) {
+            this.start = start;
+            this.arrival = new int[network.airportCount()];
+            this.via = new int[network.airportCount()];
+            Arrays.fill(arrival, Integer.MAX_VALUE);
+            Arrays.fill(via, -1);
+            arrival[origin] = start;
+        }
+
+        // returns the minutes from the starting time to the earliest arrival at an airport, or -1 if unreachable
+        int travelTime(int airport) {
+            return arrival[airport] == Integer.MAX_VALUE ? -1 : arrival[airport] - start;
+        }
+
+        // returns the earliest route to an airport, or null if it is unreachable or the origin
+        FlightRoute route(int airport) {
+            return via[airport] < 0 ? null : network.route(via, airport);
+        }
+    }
+
+    // returns the earliest arrivals from an airport leaving at a given time (HHMM)
+    Arrivals earliest(int origin, String startTime) {
+        Arrivals a = new Arrivals(origin, Flight.minutes(startTime));
+        int[] arrival = a.arrival;
+        int latest = a.start; // latest arrival time found so far
+        int days = 0;
+        for (int day = 0; ; day++) {
+            days++;
+            QueryOptions.checkpoint(); // every day scans every flight
+            boolean improved = false;
+            for (int i = 0; i < flights.length; i++) {
+                int leave = day * DAY + departure[i];
+                if (arrival[from[i]] < leave && leave + duration[i] < arrival[to[i]]) {
+                    arrival[to[i]] = leave + duration[i];
+                    a.via[to[i]] = flights[i];
+                    latest = Math.max(latest, arrival[to[i]]);
+                    improved = true;
+                }
+            }
+            // a day with no improvement that started after every arrival leaves nothing to improve on the next days
+            if (!improved && latest < day * DAY) {
+                break;
+            }
+        }
+        int reached = 0;
+        for (int t : arrival) {
+            reached += t == Integer.MAX_VALUE ? 0 : 1;
+        }
+        SearchEffort.searched(reached, (long) days * flights.length); // every flight is scanned once a day
+        return a;
+    }
+}
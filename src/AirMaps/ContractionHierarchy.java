@@ -0,0 +1,420 @@
+package AirMaps;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A contraction hierarchy over the cheapest flight of every leg, answering
+ * cheapest route queries with two small searches instead of one Dijkstra search
+ * over the network.
+ *
+ * The airports are contracted one by one, least important first (by the number
+ * of shortcuts their contraction adds compared to the legs it removes). A
+ * shortcut replaces two legs through a contracted airport, unless a route as
+ * cheap avoids it. A query then searches upwards (towards more important
+ * airports) from both airports, and the shortcuts of the cheapest route found are
+ * unpacked back into flights.
+ *
+ * The hierarchy only holds arrays and refers to the flights by their index in the
+ * network it was built from, so it can be serialized and used again with the
+ * same network (checked by {@link FrozenRoutes#contract(ContractionHierarchy)}).
+ */
+public final class ContractionHierarchy implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int WITNESS_LIMIT = 500; // airports settled by a witness search before adding the shortcut anyway
+
+    private final long fingerprint; // of the network the hierarchy was built from
+    private final int[] upFirst, upTarget, upArc; // arcs from every airport to more important airports
+    private final double[] upWeight;
+    private final int[] downFirst, downSource, downArc; // arcs into every airport from more important airports
+    private final double[] downWeight;
+    private final int[] arcFrom, arcTo; // airports of every arc
+    private final int[] arcFlight; // flight index of every arc, -1 for a shortcut
+    private final int[] arcFirst, arcSecond; // the two arcs a shortcut replaces
+
+    // the buffers of the queries of one thread, reused by its next query, so that a query only touches the
+    // airports its searches reach. shared by the hierarchies, and sized again for a network of another size.
+    private static final ThreadLocal<Scratch> scratch = new ThreadLocal<>();
+
+    private static class Scratch {
+        private final AirportHeap up, down;
+        private final double[] costUp, costDown; // from the departure, to the arrival airport
+        private final int[] viaUp, viaDown; // arc taken to reach every airport in either search
+        private final int[] reachedUp, reachedDown; // the airports reached by the current query are marked with its number
+        private int search;
+
+        private Scratch(int airports) {
+            up = new AirportHeap(airports);
+            down = new AirportHeap(airports);
+            costUp = new double[airports];
+            costDown = new double[airports];
+            viaUp = new int[airports];
+            viaDown = new int[airports];
+            reachedUp = new int[airports];
+            reachedDown = new int[airports];
+        }
+
+        // starts a new query, returning its number
+        private int next() {
+            up.clear(); // a query stopping early leaves airports in the heaps
+            down.clear();
+            if (++search == Integer.MAX_VALUE) { // the marks of the earlier queries would come back
+                Arrays.fill(reachedUp, 0);
+                Arrays.fill(reachedDown, 0);
+                search = 1;
+            }
+            return search;
+        }
+
+        // returns the cheapest cost found from the departure airport to an airport, infinity if not reached
+        private double costUp(int a) {
+            return reachedUp[a] == search ? costUp[a] : Double.POSITIVE_INFINITY;
+        }
+
+        // returns the cheapest cost found from an airport to the arrival airport, infinity if not reached
+        private double costDown(int a) {
+            return reachedDown[a] == search ? costDown[a] : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    private ContractionHierarchy(Builder b, int[] rank) {
+        int n = rank.length;
+        fingerprint = b.network.fingerprint();
+        arcFrom = Arrays.copyOf(b.from, b.arcs);
+        arcTo = Arrays.copyOf(b.to, b.arcs);
+        arcFlight = Arrays.copyOf(b.flight, b.arcs);
+        arcFirst = Arrays.copyOf(b.first, b.arcs);
+        arcSecond = Arrays.copyOf(b.second, b.arcs);
+
+        // the arcs kept are the cheapest between every two airports, upwards from the least important one
+        upFirst = new int[n + 1];
+        downFirst = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            for (int w : b.out.get(u).keySet()) {
+                if (rank[w] > rank[u]) {
+                    upFirst[u + 1]++;
+                } else {
+                    downFirst[w + 1]++;
+                }
+            }
+        }
+        for (int a = 0; a < n; a++) {
+            upFirst[a + 1] += upFirst[a];
+            downFirst[a + 1] += downFirst[a];
+        }
+        upTarget = new int[upFirst[n]];
+        upArc = new int[upFirst[n]];
+        upWeight = new double[upFirst[n]];
+        downSource = new int[downFirst[n]];
+        downArc = new int[downFirst[n]];
+        downWeight = new double[downFirst[n]];
+        int[] nextUp = Arrays.copyOf(upFirst, n), nextDown = Arrays.copyOf(downFirst, n);
+        for (int u = 0; u < n; u++) {
+            for (Map.Entry<Integer, Integer> arc : b.out.get(u).entrySet()) {
+                int w = arc.getKey(), id = arc.getValue();
+                if (rank[w] > rank[u]) {
+                    int i = nextUp[u]++;
+                    upTarget[i] = w;
+                    upArc[i] = id;
+                    upWeight[i] = b.weight[id];
+                } else {
+                    int i = nextDown[w]++;
+                    downSource[i] = u;
+                    downArc[i] = id;
+                    downWeight[i] = b.weight[id];
+                }
+            }
+        }
+    }
+
+    /** Builds the hierarchy of a network */
+    public static ContractionHierarchy build(FrozenRoutes routes) {
+        return new Builder(routes.network()).contract();
+    }
+
+    // returns the checksum of the network the hierarchy was built from
+    long fingerprint() {
+        return fingerprint;
+    }
+
+    // returns the cheapest route from one airport to another, or null if there is none
+    FlightRoute route(FlightNetwork network, int from, int to) {
+        Scratch buffers = scratch.get();
+        if (buffers == null || buffers.costUp.length != network.airportCount()) {
+            buffers = new Scratch(network.airportCount());
+            scratch.set(buffers);
+        }
+        int search = buffers.next();
+        AirportHeap up = buffers.up, down = buffers.down;
+        double[] costUp = buffers.costUp, costDown = buffers.costDown;
+        int[] viaUp = buffers.viaUp, viaDown = buffers.viaDown;
+        int[] reachedUp = buffers.reachedUp, reachedDown = buffers.reachedDown;
+        costUp[from] = 0;
+        reachedUp[from] = search;
+        costDown[to] = 0;
+        reachedDown[to] = search;
+        up.push(from, 0);
+        down.push(to, 0);
+        double best = from == to ? 0 : Double.POSITIVE_INFINITY;
+        int meet = from == to ? from : -1; // the most important airport of the cheapest route found
+        long settled = 0, relaxed = 0;
+        while (true) {
+            double minUp = up.isEmpty() ? Double.POSITIVE_INFINITY : up.minCost();
+            double minDown = down.isEmpty() ? Double.POSITIVE_INFINITY : down.minCost();
+            if (Math.min(minUp, minDown) >= best) { // neither search can find a cheaper route
+                break;
+            }
+            if (minUp <= minDown) {
+                int a = up.pop();
+                if ((++settled & 63) == 0) {
+                    QueryOptions.checkpoint();
+                }
+                relaxed += upFirst[a + 1] - upFirst[a];
+                if (costUp[a] + buffers.costDown(a) < best) {
+                    best = costUp[a] + buffers.costDown(a);
+                    meet = a;
+                }
+                for (int i = upFirst[a]; i < upFirst[a + 1]; i++) {
+                    double c = costUp[a] + upWeight[i];
+                    int b = upTarget[i];
+                    if (c < buffers.costUp(b)) {
+                        costUp[b] = c;
+                        reachedUp[b] = search;
+                        viaUp[b] = upArc[i];
+                        up.push(b, c);
+                    }
+                }
+            } else {
+                int a = down.pop();
+                if ((++settled & 63) == 0) {
+                    QueryOptions.checkpoint();
+                }
+                relaxed += downFirst[a + 1] - downFirst[a];
+                if (buffers.costUp(a) + costDown[a] < best) {
+                    best = buffers.costUp(a) + costDown[a];
+                    meet = a;
+                }
+                for (int i = downFirst[a]; i < downFirst[a + 1]; i++) {
+                    double c = costDown[a] + downWeight[i];
+                    int b = downSource[i];
+                    if (c < buffers.costDown(b)) {
+                        costDown[b] = c;
+                        reachedDown[b] = search;
+                        viaDown[b] = downArc[i];
+                        down.push(b, c);
+                    }
+                }
+            }
+        }
+        SearchEffort.searched(settled, relaxed);
+        if (meet < 0) {
+            return null;
+        }
+
+        // the arcs from the departure airport up to the meeting airport, then down to the arrival airport
+        LinkedList<Integer> arcs = new LinkedList<>();
+        for (int a = meet; a != from; a = arcFrom[viaUp[a]]) {
+            arcs.addFirst(viaUp[a]);
+        }
+        for (int a = meet; a != to; a = arcTo[viaDown[a]]) {
+            arcs.addLast(viaDown[a]);
+        }
+        List<Flight> legs = new ArrayList<>();
+        for (int arc : arcs) {
+            unpack(network, arc, legs);
+        }
+        return new FlightRoute(network.airport(from), legs);
+    }
+
+    // adds the flights of an arc, unpacking the shortcuts
+    private void unpack(FlightNetwork network, int arc, List<Flight> legs) {
+        if (arcFlight[arc] >= 0) {
+            legs.add(network.flight(arcFlight[arc]));
+        } else {
+            unpack(network, arcFirst[arc], legs);
+            unpack(network, arcSecond[arc], legs);
+        }
+    }
+
+    /** Writes the hierarchy to a file */
+    public void write(File file) throws AirRoutesException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(this);
+        } catch (IOException e) {
+            throw new AirRoutesException("Could not write contraction hierarchy " + file + ": " + e.getMessage());
+        }
+    }
+
+    /** Reads a hierarchy from a file */
+    public static ContractionHierarchy read(File file) throws AirRoutesException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (ContractionHierarchy) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new AirRoutesException("Could not read contraction hierarchy " + file + ": " + e);
+        }
+    }
+
+    // contracts the airports of a network, keeping the arcs between them in adjacency maps
+    private static class Builder {
+        private final FlightNetwork network;
+        private final int n;
+        private final List<Map<Integer, Integer>> out = new ArrayList<>(), in = new ArrayList<>(); // arc to or from every neighbour
+        private int arcs;
+        private int[] from = new int[16], to = new int[16], flight = new int[16], first = new int[16], second = new int[16];
+        private double[] weight = new double[16];
+        private final boolean[] contracted;
+        private final int[] contractedNeighbours; // number of contracted neighbours of every airport, spreading the contraction
+
+        // buffers of the witness searches
+        private final double[] cost;
+        private final int[] reached; // the airports reached by the current witness search are marked with its number
+        private int search;
+        private final AirportHeap heap;
+
+        private Builder(FlightNetwork network) {
+            this.network = network;
+            this.n = network.airportCount();
+            for (int a = 0; a < n; a++) {
+                out.add(new HashMap<>());
+                in.add(new HashMap<>());
+            }
+            contracted = new boolean[n];
+            contractedNeighbours = new int[n];
+            cost = new double[n];
+            reached = new int[n];
+            heap = new AirportHeap(n);
+            for (int e = 0; e < network.flightCount(); e++) {
+                if (network.source(e) != network.target(e)) {
+                    addArc(network.source(e), network.target(e), network.price(e), e, -1, -1);
+                }
+            }
+        }
+
+        // adds an arc, unless there is already one as cheap between the same airports
+        private void addArc(int u, int w, double c, int flightIndex, int firstArc, int secondArc) {
+            Integer existing = out.get(u).get(w);
+            if (existing != null && weight[existing] <= c) {
+                return;
+            }
+            if (arcs == weight.length) {
+                int size = arcs * 2;
+                from = Arrays.copyOf(from, size);
+                to = Arrays.copyOf(to, size);
+                flight = Arrays.copyOf(flight, size);
+                first = Arrays.copyOf(first, size);
+                second = Arrays.copyOf(second, size);
+                weight = Arrays.copyOf(weight, size);
+            }
+            from[arcs] = u;
+            to[arcs] = w;
+            flight[arcs] = flightIndex;
+            first[arcs] = firstArc;
+            second[arcs] = secondArc;
+            weight[arcs] = c;
+            out.get(u).put(w, arcs);
+            in.get(w).put(u, arcs);
+            arcs++;
+        }
+
+        private ContractionHierarchy contract() {
+            // airports by priority, updated lazily: a popped airport whose priority went up is queued again
+            PriorityQueue<int[]> queue = new PriorityQueue<>(Comparator.comparingInt((int[] p) -> p[0]));
+            for (int v = 0; v < n; v++) {
+                queue.add(new int[] { priority(v), v });
+            }
+            int[] rank = new int[n];
+            int next = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.poll()[1];
+                int p = priority(v);
+                if (!queue.isEmpty() && p > queue.peek()[0]) {
+                    queue.add(new int[] { p, v });
+                    continue;
+                }
+                shortcuts(v, true);
+                contracted[v] = true;
+                rank[v] = next++;
+                for (int u : in.get(v).keySet()) {
+                    contractedNeighbours[u]++;
+                }
+                for (int w : out.get(v).keySet()) {
+                    contractedNeighbours[w]++;
+                }
+            }
+            return new ContractionHierarchy(this, rank);
+        }
+
+        // the shortcuts the contraction of an airport adds, less the arcs it removes, spread by its contracted neighbours
+        private int priority(int v) {
+            int removed = 0;
+            for (int u : in.get(v).keySet()) {
+                removed += contracted[u] ? 0 : 1;
+            }
+            for (int w : out.get(v).keySet()) {
+                removed += contracted[w] ? 0 : 1;
+            }
+            return shortcuts(v, false) - removed + contractedNeighbours[v];
+        }
+
+        // counts, and adds if asked, the shortcuts needed to contract an airport
+        private int shortcuts(int v, boolean add) {
+            int count = 0;
+            for (Map.Entry<Integer, Integer> arcIn : in.get(v).entrySet()) {
+                int u = arcIn.getKey();
+                if (contracted[u]) {
+                    continue;
+                }
+                double toV = weight[arcIn.getValue()];
+                double max = 0;
+                for (Map.Entry<Integer, Integer> arcOut : out.get(v).entrySet()) {
+                    if (!contracted[arcOut.getKey()] && arcOut.getKey() != u) {
+                        max = Math.max(max, toV + weight[arcOut.getValue()]);
+                    }
+                }
+                witness(u, v, max);
+                for (Map.Entry<Integer, Integer> arcOut : out.get(v).entrySet()) {
+                    int w = arcOut.getKey();
+                    if (contracted[w] || w == u) {
+                        continue;
+                    }
+                    double c = toV + weight[arcOut.getValue()];
+                    if (reached[w] != search || cost[w] > c) { // no route as cheap avoids v
+                        count++;
+                        if (add) {
+                            addArc(u, w, c, -1, arcIn.getValue(), arcOut.getValue());
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        // Dijkstra search from an airport over the airports not contracted yet but one, up to a cost
+        private void witness(int u, int avoided, double max) {
+            search++;
+            heap.clear();
+            cost[u] = 0;
+            reached[u] = search;
+            heap.push(u, 0);
+            int settled = 0;
+            while (!heap.isEmpty() && settled++ < WITNESS_LIMIT) {
+                int a = heap.pop();
+                if (cost[a] > max) {
+                    break;
+                }
+                for (Map.Entry<Integer, Integer> arc : out.get(a).entrySet()) {
+                    int b = arc.getKey();
+                    if (b == avoided || contracted[b]) {
+                        continue;
+                    }
+                    double c = cost[a] + weight[arc.getValue()];
+                    if (reached[b] != search || c < cost[b]) {
+                        cost[b] = c;
+                        reached[b] = search;
+                        heap.push(b, c);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package AirMaps;
+
+// lower bounds of the cheapest cost from any airport to an arrival airport, directing the A* search.
+// a bound never exceeds the real cost (admissible), and the bound of an airport never exceeds the price of
+// a flight plus the bound of its arrival airport (consistent). an infinite bound means the arrival airport
+// cannot be reached.
+interface CostBounds {
+
+    // returns a lower bound of the cheapest cost from an airport to another
+    double bound(int airport, int to);
+}
@@ -0,0 +1,31 @@
+package AirMaps;
+
+/**
+ * The search answering a cheapest route query. Every engine finds a route of the
+ * same, cheapest, cost; routes of equal cost may differ.
+ */
+public enum CostEngine {
+
+	/** Dijkstra search from the departure airport, the default */
+	DIJKSTRA,
+
+	/**
+	 * A* search directed towards the arrival airport, by the distances between the
+	 * airports if they all have coordinates, otherwise by the costs to and from a
+	 * few hub airports (landmarks), computed on the first A* query
+	 */
+	A_STAR,
+
+	/**
+	 * Dijkstra searches from the departure airport and backwards from the arrival
+	 * airport at the same time, until they meet
+	 */
+	BIDIRECTIONAL,
+
+	/**
+	 * Upward searches from both airports in the contraction hierarchy built by
+	 * {@code contract()}; a query excluding airports is answered by Dijkstra search,
+	 * the shortcuts of the hierarchy going through any airport
+	 */
+	CONTRACTION_HIERARCHY
+}
@@ -0,0 +1,322 @@
+package AirMaps;
+
+import java.util.Arrays;
+
+// Dijkstra search over the flight network, used to find the cheapest routes.
+// the network is never changed, and the heaps, settled marks and backward costs are kept per thread and reused by
+// its next search, so any number of threads can search at the same time and a search only allocates its tree.
+class CostSearch {
+    private final FlightNetwork network;
+    private final ThreadLocal<Scratch> scratch;
+
+    // the buffers of the searches of one thread
+    private static class Scratch {
+        private final AirportHeap heap, backHeap; // the backward ones are used by the bidirectional searches
+        private final int[] settled, backSettled; // the airports settled by the current search are marked with its number
+        private final int[] backReached; // the airports reached backwards by the current search are marked with its number
+        private final double[] back; // cheapest cost from every airport reached backwards to the arrival airport
+        private final int[] backVia; // the flight taken from every airport reached backwards towards the arrival airport
+        private int search;
+
+        private Scratch(int airports) {
+            heap = new AirportHeap(airports);
+            backHeap = new AirportHeap(airports);
+            settled = new int[airports];
+            backSettled = new int[airports];
+            backReached = new int[airports];
+            back = new double[airports];
+            backVia = new int[airports];
+        }
+
+        // starts a new search, returning its number
+        private int next() {
+            heap.clear(); // a search stopping early leaves airports in the heap
+            backHeap.clear();
+            if (++search == Integer.MAX_VALUE) { // the marks of the earlier searches would come back
+                Arrays.fill(settled, 0);
+                Arrays.fill(backSettled, 0);
+                Arrays.fill(backReached, 0);
+                search = 1;
+            }
+            return search;
+        }
+
+        // returns the cheapest cost from an airport to the arrival airport found backwards by the current search,
+        // infinity if it was not reached
+        private double back(int airport) {
+            return backReached[airport] == search ? back[airport] : Double.POSITIVE_INFINITY;
+        }
+
+        // records a cheaper cost from an airport to the arrival airport, taking a flight towards it (-1 if none)
+        private void reachBack(int airport, double cost, int flight) {
+            backReached[airport] = search;
+            back[airport] = cost;
+            backVia[airport] = flight;
+        }
+    }
+
+    CostSearch(FlightNetwork network) {
+        this.network = network;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(network.airportCount()));
+    }
+
+    // the cheapest routes from one airport, as found by a Dijkstra search
+    static class Tree {
+        private final FlightNetwork network;
+        private final double[] cost; // cheapest cost to every airport, infinity if it was not reached
+        private final int[] via; // the flight taken to reach every airport, -1 if none
+        private int settled; // number of airports settled by the search
+
+        private Tree(FlightNetwork network, int from) {
+            this.network = network;
+            this.cost = new double[network.airportCount()];
+            this.via = new int[network.airportCount()];
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+            Arrays.fill(via, -1);
+            cost[from] = 0;
+        }
+
+        // returns true if a route to the airport was found
+        boolean reaches(int airport) {
+            return cost[airport] != Double.POSITIVE_INFINITY;
+        }
+
+        // returns the flight taken to reach the airport, -1 if none
+        int via(int airport) {
+            return via[airport];
+        }
+
+        // returns the cost of the cheapest route to the airport, infinity if it was not reached
+        double cost(int airport) {
+            return cost[airport];
+        }
+
+        // returns the number of airports settled by the search, a measure of its work
+        int settled() {
+            return settled;
+        }
+
+        // returns the cheapest cost to every airport
+        double[] costs() {
+            return cost;
+        }
+
+        // returns the cheapest route to the airport, or null if it was not reached
+        FlightRoute route(int airport) {
+            return reaches(airport) ? network.route(via, airport) : null;
+        }
+    }
+
+    // returns the cheapest routes from one airport to every airport
+    Tree getTree(int from) {
+        return search(from, -1, null, null, Double.POSITIVE_INFINITY);
+    }
+
+    // returns the cheapest routes from one airport, searching until the arrival airport is reached and
+    // never going through the excluded airports (excluded may be null)
+    Tree getTree(int from, int to, boolean[] excluded) {
+        return search(from, to, excluded, null, Double.POSITIVE_INFINITY);
+    }
+
+    // same as above, also never flying directly from the departure airport to the blocked airports (blocked may
+    // be null) and giving up once every remaining route costs more than maxCost. the route found to the arrival
+    // airport is only the cheapest one if its cost is at most maxCost.
+    Tree getTree(int from, int to, boolean[] excluded, boolean[] blocked, double maxCost) {
+        return search(from, to, excluded, blocked, maxCost);
+    }
+
+    private Tree search(int from, int to, boolean[] excluded, boolean[] blocked, double maxCost) {
+        Tree tree = new Tree(network, from);
+        double[] cost = tree.cost;
+        Scratch buffers = scratch.get();
+        int search = buffers.next();
+        AirportHeap heap = buffers.heap;
+        int[] settled = buffers.settled;
+        long relaxed = 0; // flights looked at, reported to the SearchEffort of the thread
+        heap.push(from, 0);
+        while (!heap.isEmpty()) {
+            int a = heap.pop();
+            if (cost[a] > maxCost) { // every route still to be found costs too much
+                break;
+            }
+            settled[a] = search;
+            tree.settled++;
+            if ((tree.settled & 63) == 0) {
+                QueryOptions.checkpoint();
+            }
+            if (a == to) { // the costs of the airports not settled yet may still go down
+                break;
+            }
+            relaxed += network.endFlight(a) - network.firstFlight(a);
+            for (int e = network.firstFlight(a), end = network.endFlight(a); e < end; e++) {
+                int b = network.target(e);
+                if (settled[b] == search || (excluded != null && excluded[b]) || (a == from && blocked != null && blocked[b])) {
+                    continue;
+                }
+                double c = cost[a] + network.price(e);
+                if (c < cost[b]) {
+                    cost[b] = c;
+                    tree.via[b] = e;
+                    heap.push(b, c);
+                }
+            }
+        }
+        SearchEffort.searched(tree.settled, relaxed);
+        return tree;
+    }
+
+    // returns the cheapest route from one airport to another by an A* search, never going through the excluded
+    // airports (excluded may be null). the bounds must be consistent: an airport is settled once, when its
+    // cheapest cost is known, as in the Dijkstra search. airports with an infinite bound cannot reach the arrival
+    // airport and are never queued.
+    Tree getTree(int from, int to, boolean[] excluded, CostBounds bounds) {
+        Tree tree = new Tree(network, from);
+        double[] cost = tree.cost;
+        Scratch buffers = scratch.get();
+        int search = buffers.next();
+        AirportHeap heap = buffers.heap;
+        int[] settled = buffers.settled;
+        long relaxed = 0;
+        heap.push(from, bounds.bound(from, to)); // the heap is keyed by the cost so far plus the bound of the rest
+        while (!heap.isEmpty()) {
+            int a = heap.pop();
+            settled[a] = search;
+            tree.settled++;
+            if ((tree.settled & 63) == 0) {
+                QueryOptions.checkpoint();
+            }
+            if (a == to) {
+                break;
+            }
+            relaxed += network.endFlight(a) - network.firstFlight(a);
+            for (int e = network.firstFlight(a), end = network.endFlight(a); e < end; e++) {
+                int b = network.target(e);
+                if (settled[b] == search || (excluded != null && excluded[b])) {
+                    continue;
+                }
+                double c = cost[a] + network.price(e);
+                if (c < cost[b]) {
+                    double bound = bounds.bound(b, to);
+                    if (bound == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    cost[b] = c;
+                    tree.via[b] = e;
+                    heap.push(b, c + bound);
+                }
+            }
+        }
+        SearchEffort.searched(tree.settled, relaxed);
+        return tree;
+    }
+
+    // returns the cheapest route from one airport to another by a bidirectional Dijkstra search: a search forwards
+    // from the departure airport and a search backwards over the arriving flights from the arrival airport, the
+    // side with the lower next cost settling its next airport, never going through the excluded airports (excluded
+    // may be null). the searches stop once the next costs of both sides add up to the cheapest route met so far,
+    // which no route going through an airport not settled yet can beat. the returned tree only holds the routes
+    // found forwards and the route to the arrival airport, its settled count being the airports settled by both.
+    Tree getBidirectionalTree(int from, int to, boolean[] excluded) {
+        Tree tree = new Tree(network, from);
+        double[] cost = tree.cost;
+        Scratch buffers = scratch.get();
+        int search = buffers.next();
+        buffers.reachBack(to, 0, -1);
+        AirportHeap heap = buffers.heap, backHeap = buffers.backHeap;
+        int[] settled = buffers.settled, backSettled = buffers.backSettled;
+        long relaxed = 0;
+        heap.push(from, 0);
+        backHeap.push(to, 0);
+        double best = from == to ? 0 : Double.POSITIVE_INFINITY; // cost of the cheapest route met so far
+        int meet = from == to ? to : -1; // the airport where it was met
+        while (!heap.isEmpty() && !backHeap.isEmpty() && heap.minCost() + backHeap.minCost() < best) {
+            tree.settled++;
+            if ((tree.settled & 63) == 0) {
+                QueryOptions.checkpoint();
+            }
+            if (heap.minCost() <= backHeap.minCost()) {
+                int a = heap.pop();
+                settled[a] = search;
+                relaxed += network.endFlight(a) - network.firstFlight(a);
+                for (int e = network.firstFlight(a), end = network.endFlight(a); e < end; e++) {
+                    int b = network.target(e);
+                    if (settled[b] == search || (excluded != null && excluded[b])) {
+                        continue;
+                    }
+                    double c = cost[a] + network.price(e);
+                    if (c < cost[b]) {
+                        cost[b] = c;
+                        tree.via[b] = e;
+                        heap.push(b, c);
+                        if (c + buffers.back(b) < best) {
+                            best = c + buffers.back(b);
+                            meet = b;
+                        }
+                    }
+                }
+            } else {
+                int b = backHeap.pop();
+                backSettled[b] = search;
+                relaxed += network.endArriving(b) - network.firstArriving(b);
+                for (int i = network.firstArriving(b), end = network.endArriving(b); i < end; i++) {
+                    int e = network.arrivingFlight(i);
+                    int a = network.source(e);
+                    if (backSettled[a] == search || (excluded != null && excluded[a])) {
+                        continue;
+                    }
+                    double c = buffers.back[b] + network.price(e); // b was reached backwards, as it was settled
+                    if (c < buffers.back(a)) {
+                        buffers.reachBack(a, c, e);
+                        backHeap.push(a, c);
+                        if (cost[a] + c < best) {
+                            best = cost[a] + c;
+                            meet = a;
+                        }
+                    }
+                }
+            }
+        }
+        if (meet >= 0) { // the route to the meeting airport is in the tree, add the route from it found backwards
+            for (int a = meet; a != to; a = network.target(buffers.backVia[a])) {
+                int e = buffers.backVia[a];
+                cost[network.target(e)] = cost[a] + network.price(e);
+                tree.via[network.target(e)] = e;
+            }
+        }
+        SearchEffort.searched(tree.settled, relaxed);
+        return tree;
+    }
+
+    // returns the cheapest cost from every airport to one airport, infinity if it cannot be reached,
+    // by a Dijkstra search going backwards over the arriving flights
+    double[] costsTo(int to) {
+        double[] cost = new double[network.airportCount()];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        cost[to] = 0;
+        Scratch buffers = scratch.get();
+        int search = buffers.next();
+        AirportHeap heap = buffers.heap;
+        int[] settled = buffers.settled;
+        long settledCount = 0, relaxed = 0;
+        heap.push(to, 0);
+        while (!heap.isEmpty()) {
+            int b = heap.pop();
+            settled[b] = search;
+            if ((++settledCount & 63) == 0) {
+                QueryOptions.checkpoint();
+            }
+            relaxed += network.endArriving(b) - network.firstArriving(b);
+            for (int i = network.firstArriving(b), end = network.endArriving(b); i < end; i++) {
+                int e = network.arrivingFlight(i);
+                int a = network.source(e);
+                double c = cost[b] + network.price(e);
+                if (settled[a] != search && c < cost[a]) {
+                    cost[a] = c;
+                    heap.push(a, c);
+                }
+            }
+        }
+        SearchEffort.searched(settledCount, relaxed);
+        return cost;
+    }
+}
@@ -0,0 +1,175 @@
+package AirMaps;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// reads a dataset file into memory in one buffered read and splits it into lines and comma separated fields
+// on the raw bytes, without regular expressions or per-line allocations. fields are only turned into
+// strings or numbers when asked for.
+class CsvReader {
+    private static final int CODES = 36 * 36 * 36; // three letter codes made of letters and digits
+
+    private final byte[] data;
+    private int next; // start of the next line
+    private int[] start = new int[8], end = new int[8]; // bounds of every field of the current line
+    private int fields; // number of fields of the current line
+    private final String[] codes = new String[CODES]; // interned three letter codes
+
+    CsvReader(File file) throws FileNotFoundException, AirRoutesException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            data = in.readAllBytes();
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new AirRoutesException("Could not read " + file + ": " + e.getMessage());
+        }
+    }
+
+    // moves to the next non empty line, returns false at the end of the file
+    boolean next() {
+        while (next < data.length) {
+            int lineStart = next;
+            int i = lineStart;
+            while (i < data.length && data[i] != '\n') {
+                i++;
+            }
+            next = i + 1;
+            int lineEnd = i > lineStart && data[i - 1] == '\r' ? i - 1 : i;
+            if (lineEnd == lineStart) { // skip empty lines
+                continue;
+            }
+            fields = 0;
+            int fieldStart = lineStart;
+            for (int j = lineStart; j < lineEnd; j++) {
+                if (data[j] == ',') {
+                    addField(fieldStart, j);
+                    fieldStart = j + 1;
+                }
+            }
+            addField(fieldStart, lineEnd);
+            return true;
+        }
+        return false;
+    }
+
+    private void addField(int from, int to) {
+        if (fields == start.length) {
+            start = Arrays.copyOf(start, fields * 2);
+            end = Arrays.copyOf(end, fields * 2);
+        }
+        start[fields] = from;
+        end[fields] = to;
+        fields++;
+    }
+
+    // returns the number of fields of the current line
+    int fields() {
+        return fields;
+    }
+
+    // returns the byte at a position of a field
+    byte byteAt(int field, int i) {
+        return data[start[field] + i];
+    }
+
+    // returns the length of a field
+    int length(int field) {
+        return end[field] - start[field];
+    }
+
+    // returns a field as a string
+    String field(int field) {
+        return new String(data, start[field], length(field), StandardCharsets.UTF_8);
+    }
+
+    // returns all the fields of the current line
+    String[] row() {
+        String[] row = new String[fields];
+        for (int i = 0; i < fields; i++) {
+            row[i] = field(i);
+        }
+        return row;
+    }
+
+    // returns a three letter code field (airport or airline code) as a shared string,
+    // so every occurrence of a code allocates nothing after the first one
+    String code(int field) {
+        if (length(field) != 3) {
+            return field(field);
+        }
+        int key = 0;
+        for (int i = 0; i < 3; i++) {
+            int c = codeDigit(byteAt(field, i));
+            if (c < 0) {
+                return field(field);
+            }
+            key = key * 36 + c;
+        }
+        if (codes[key] == null) {
+            codes[key] = field(field);
+        }
+        return codes[key];
+    }
+
+    private static int codeDigit(byte b) {
+        if (b >= 'A' && b <= 'Z') {
+            return b - 'A';
+        }
+        if (b >= '0' && b <= '9') {
+            return 26 + b - '0';
+        }
+        return -1;
+    }
+
+    // returns a time field (HHMM) as minutes after midnight
+    int time(int field) throws AirRoutesException {
+        if (length(field) != 4) {
+            throw new AirRoutesException("Invalid time: " + field(field));
+        }
+        int hours = digits(field, 0, 2), minutes = digits(field, 2, 4);
+        if (hours > 23 || minutes > 59) {
+            throw new AirRoutesException("Invalid time: " + field(field));
+        }
+        return hours * 60 + minutes;
+    }
+
+    // returns a price field, an integer or decimal number
+    double number(int field) throws AirRoutesException {
+        if (length(field) == 0) {
+            throw new AirRoutesException("Invalid number: empty field");
+        }
+        long whole = 0, fraction = 0, scale = 1;
+        boolean decimal = false;
+        for (int i = 0; i < length(field); i++) {
+            byte b = byteAt(field, i);
+            if (b == '.' && !decimal) {
+                decimal = true;
+            } else if (b >= '0' && b <= '9' && !decimal) {
+                whole = whole * 10 + (b - '0');
+            } else if (b >= '0' && b <= '9' && scale < 1_000_000_000_000L) {
+                fraction = fraction * 10 + (b - '0');
+                scale *= 10;
+            } else {
+                try { // anything unusual (signs, exponents) is left to the standard parser
+                    return Double.parseDouble(field(field));
+                } catch (NumberFormatException e) {
+                    throw new AirRoutesException("Invalid number: " + field(field));
+                }
+            }
+        }
+        return whole + (double) fraction / scale;
+    }
+
+    private int digits(int field, int from, int to) throws AirRoutesException {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            byte b = byteAt(field, i);
+            if (b < '0' || b > '9') {
+                throw new AirRoutesException("Invalid time: " + field(field));
+            }
+            n = n * 10 + (b - '0');
+        }
+        return n;
+    }
+}
@@ -3,14 +3,44 @@ package AirMaps;
 import org.jgrapht.graph.*;
 
 public class Flight extends DefaultWeightedEdge {
+    private static final String[] TIMES = new String[24 * 60]; // every time of the day (HHMM)
+    static {
+        for (int m = 0; m < TIMES.length; m++) {
+            TIMES[m] = String.format("%02d%02d", m / 60, m % 60);
+        }
+    }
+
     private String code;
     private String departure;
     private String arrival;
+    private int departureMinute; // departure time in minutes after midnight
+    private int arrivalMinute; // arrival time in minutes after midnight
+    private String from, to; // departure and arrival airport of a flight read from a snapshot, null if added to a graph
+    private double price; // price of a flight read from a snapshot
 
     public Flight(String a, String b, String c) {
         code = a;
         departure = b;
         arrival = c;
+        departureMinute = minutes(b);
+        arrivalMinute = minutes(c);
+    }
+
+    // creates a flight from times already parsed to minutes after midnight
+    Flight(String code, int departureMinute, int arrivalMinute) {
+        this.code = code;
+        this.departure = time(departureMinute);
+        this.arrival = time(arrivalMinute);
+        this.departureMinute = departureMinute;
+        this.arrivalMinute = arrivalMinute;
+    }
+
+    // creates a flight read from a snapshot, which knows its airports and price without being added to a graph
+    Flight(String code, int departureMinute, int arrivalMinute, String from, String to, double price) {
+        this(code, departureMinute, arrivalMinute);
+        this.from = from;
+        this.to = to;
+        this.price = price;
     }
 
     public String getCode() {
@@ -25,4 +55,55 @@ public class Flight extends DefaultWeightedEdge {
         return this.arrival;
     }
 
+    // returns the departure airport of the flight, once it was added to a graph or read from a snapshot
+    public String getFrom() {
+        return from != null ? from : (String) getSource();
+    }
+
+    // returns the arrival airport of the flight, once it was added to a graph or read from a snapshot
+    public String getTo() {
+        return to != null ? to : (String) getTarget();
+    }
+
+    // returns the price of the flight, which is its weight in the graph
+    public double getPrice() {
+        return from != null ? price : getWeight();
+    }
+
+    // the same text as an edge of the graph, for the flights read from a snapshot too
+    @Override
+    public String toString() {
+        return "(" + getFrom() + " : " + getTo() + ")";
+    }
+
+    public int getDepartureMinute() {
+        return this.departureMinute;
+    }
+
+    public int getArrivalMinute() {
+        return this.arrivalMinute;
+    }
+
+    // returns the duration of the flight in minutes
+    public int getDuration() {
+        return minutesBetween(departureMinute, arrivalMinute);
+    }
+
+    // converts a time of the day (HHMM) to minutes after midnight
+    static int minutes(String time) {
+        return Integer.parseInt(time.substring(0, 2)) * 60 + Integer.parseInt(time.substring(2, 4));
+    }
+
+    // converts minutes after midnight to a time of the day (HHMM), shared by all the flights
+    static String time(int minutes) {
+        return TIMES[minutes];
+    }
+
+    // returns the minutes from one time of the day to the next occurrence of another one.
+    // equal times are a full day apart.
+    static int minutesBetween(int from, int to) {
+        int diff = to - from;
+        return diff > 0 ? diff : diff + 24 * 60;
+    }
+
 }
@@ -0,0 +1,70 @@
+package AirMaps;
+
+import java.util.*;
+
+// the flights between every pair of airports, indexed when the graph is populated.
+// looking up the cheapest flight of a leg is two hash lookups and allocates nothing.
+class FlightIndex {
+
+    // the parallel flights from one airport to another
+    private static class Leg {
+        private Flight cheapest;
+        private final List<Flight> byDeparture = new ArrayList<>(2); // sorted by departure time
+
+        private void add(Flight f) {
+            if (cheapest == null || f.getPrice() < cheapest.getPrice()) { // the first of equally priced flights is kept
+                cheapest = f;
+            }
+            int i = byDeparture.size();
+            while (i > 0 && byDeparture.get(i - 1).getDepartureMinute() > f.getDepartureMinute()) {
+                i--;
+            }
+            byDeparture.add(i, f);
+        }
+    }
+
+    private final Map<String, Map<String, Leg>> legs = new HashMap<>(); // departure airport -> arrival airport -> flights
+
+    // adds a flight that is already part of the graph, so that its airports and price are known
+    void add(Flight f) {
+        legs.computeIfAbsent(f.getFrom(), k -> new HashMap<>()).computeIfAbsent(f.getTo(), k -> new Leg()).add(f);
+    }
+
+    // adds the flights from one airport to another as indexed earlier, byDeparture being sorted by departure time
+    void add(String from, String to, Flight cheapest, List<Flight> byDeparture) {
+        Leg leg = legs.computeIfAbsent(from, k -> new HashMap<>()).computeIfAbsent(to, k -> new Leg());
+        leg.cheapest = cheapest;
+        leg.byDeparture.addAll(byDeparture);
+    }
+
+    // the flights of a leg, as given by forEachLeg()
+    interface LegAction {
+        void accept(String from, String to, Flight cheapest, List<Flight> byDeparture);
+    }
+
+    // calls an action with the flights of every leg
+    void forEachLeg(LegAction action) {
+        for (Map.Entry<String, Map<String, Leg>> from : legs.entrySet()) {
+            for (Map.Entry<String, Leg> to : from.getValue().entrySet()) {
+                action.accept(from.getKey(), to.getKey(), to.getValue().cheapest, Collections.unmodifiableList(to.getValue().byDeparture));
+            }
+        }
+    }
+
+    // returns the cheapest flight from one airport to another, or null if there is none
+    Flight cheapest(String from, String to) {
+        Leg leg = leg(from, to);
+        return leg == null ? null : leg.cheapest;
+    }
+
+    // returns the flights from one airport to another sorted by departure time
+    List<Flight> flights(String from, String to) {
+        Leg leg = leg(from, to);
+        return leg == null ? Collections.emptyList() : Collections.unmodifiableList(leg.byDeparture);
+    }
+
+    private Leg leg(String from, String to) {
+        Map<String, Leg> m = legs.get(from);
+        return m == null ? null : m.get(to);
+    }
+}
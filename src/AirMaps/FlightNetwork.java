@@ -0,0 +1,211 @@
+package AirMaps;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+import org.jgrapht.Graph;
+
+/**
+ * A compact, read-only copy of the flights graph. Airport codes are interned to
+ * dense ints and the flights are stored in compressed sparse row arrays grouped
+ * by departure airport, so the searches run over a few contiguous primitive
+ * arrays instead of hash lookups and edge objects.
+ */
+public final class FlightNetwork {
+    private final String[] airports; // airport code of every airport index
+    private final Map<String, Integer> index; // airport index of every airport code
+    private final int[] first; // flights departing from airport a are first[a] to first[a + 1] - 1
+    private final int[] source, target; // departure and arrival airport of every flight
+    private final double[] price; // price of every flight
+    private final int[] departure, arrival; // departure and arrival minute of every flight
+    private final Flight[] flights; // flight of every flight index, used to build the routes
+    private final int[] firstIn; // flights arriving at airport a are inFlights[firstIn[a]] to inFlights[firstIn[a + 1] - 1]
+    private final int[] inFlights; // flight indexes grouped by arrival airport
+
+    /** Creates the network from the airports and flights of a graph */
+    public FlightNetwork(Graph<String, Flight> graph) {
+        airports = graph.vertexSet().toArray(new String[0]);
+        index = new HashMap<>(airports.length * 2);
+        for (String airport : airports) {
+            index.put(airport, index.size());
+        }
+        int n = graph.edgeSet().size();
+        first = new int[airports.length + 1];
+        source = new int[n];
+        target = new int[n];
+        price = new double[n];
+        departure = new int[n];
+        arrival = new int[n];
+        flights = new Flight[n];
+        int e = 0;
+        for (int a = 0; a < airports.length; a++) {
+            first[a] = e;
+            for (Flight f : graph.outgoingEdgesOf(airports[a])) {
+                source[e] = a;
+                target[e] = index.get(graph.getEdgeTarget(f));
+                price[e] = graph.getEdgeWeight(f);
+                departure[e] = f.getDepartureMinute();
+                arrival[e] = f.getArrivalMinute();
+                flights[e] = f;
+                e++;
+            }
+        }
+        first[airports.length] = e;
+
+        // the same flights grouped by arrival airport, for the searches going backwards
+        firstIn = new int[airports.length + 1];
+        for (int i = 0; i < n; i++) {
+            firstIn[target[i] + 1]++;
+        }
+        for (int a = 0; a < airports.length; a++) {
+            firstIn[a + 1] += firstIn[a];
+        }
+        inFlights = new int[n];
+        int[] next = Arrays.copyOf(firstIn, airports.length);
+        for (int i = 0; i < n; i++) {
+            inFlights[next[target[i]]++] = i;
+        }
+    }
+
+    // creates the network from the arrays of another one, as written to a snapshot
+    FlightNetwork(String[] airports, int[] first, int[] source, int[] target, double[] price, int[] departure, int[] arrival,
+            Flight[] flights, int[] firstIn, int[] inFlights) {
+        this.airports = airports;
+        index = new HashMap<>(airports.length * 2);
+        for (String airport : airports) {
+            index.put(airport, index.size());
+        }
+        this.first = first;
+        this.source = source;
+        this.target = target;
+        this.price = price;
+        this.departure = departure;
+        this.arrival = arrival;
+        this.flights = flights;
+        this.firstIn = firstIn;
+        this.inFlights = inFlights;
+    }
+
+    /** Returns the number of airports */
+    public int airportCount() {
+        return airports.length;
+    }
+
+    /** Returns the number of flights */
+    public int flightCount() {
+        return flights.length;
+    }
+
+    /** Returns the index of an airport code, or -1 if the airport does not exist */
+    public int indexOf(String airport) {
+        Integer i = index.get(airport);
+        return i == null ? -1 : i;
+    }
+
+    /** Returns the airport code of an airport index */
+    public String airport(int a) {
+        return airports[a];
+    }
+
+    /** Returns the airport codes in index order */
+    public List<String> airports() {
+        return Collections.unmodifiableList(Arrays.asList(airports));
+    }
+
+    // index of the first flight departing from an airport
+    int firstFlight(int a) {
+        return first[a];
+    }
+
+    // index after the last flight departing from an airport
+    int endFlight(int a) {
+        return first[a + 1];
+    }
+
+    // position of the first flight arriving at an airport, see arrivingFlight()
+    int firstArriving(int a) {
+        return firstIn[a];
+    }
+
+    // position after the last flight arriving at an airport
+    int endArriving(int a) {
+        return firstIn[a + 1];
+    }
+
+    // returns the flight index at a position of the flights grouped by arrival airport
+    int arrivingFlight(int i) {
+        return inFlights[i];
+    }
+
+    int source(int e) {
+        return source[e];
+    }
+
+    int target(int e) {
+        return target[e];
+    }
+
+    double price(int e) {
+        return price[e];
+    }
+
+    int departure(int e) {
+        return departure[e];
+    }
+
+    int arrival(int e) {
+        return arrival[e];
+    }
+
+    Flight flight(int e) {
+        return flights[e];
+    }
+
+    // returns a checksum of the airports and flights in index order, for the precomputed data referring to them
+    long fingerprint() {
+        CRC32 crc = new CRC32();
+        for (String airport : airports) {
+            crc.update(airport.getBytes(StandardCharsets.UTF_8));
+        }
+        for (int e = 0; e < flights.length; e++) {
+            crc.update(flights[e].getCode().getBytes(StandardCharsets.UTF_8));
+            update(crc, target[e]);
+            update(crc, departure[e]);
+            update(crc, arrival[e]);
+            update(crc, Double.doubleToLongBits(price[e]));
+        }
+        return crc.getValue();
+    }
+
+    // adds the eight bytes of a number to a checksum
+    private static void update(CRC32 crc, long value) {
+        for (int i = 0; i < 8; i++) {
+            crc.update((int) (value >>> (8 * i)));
+        }
+    }
+
+    // returns a mask of the airports of the network that are in a list of airport codes
+    boolean[] mask(Collection<String> airports) {
+        boolean[] mask = new boolean[this.airports.length];
+        for (String airport : airports) {
+            int a = indexOf(airport);
+            if (a >= 0) {
+                mask[a] = true;
+            }
+        }
+        return mask;
+    }
+
+    // follows the flight taken to reach every airport back from an airport, and returns the route to it.
+    // via holds the index of the flight taken to reach every airport, or -1 for the starting airport.
+    FlightRoute route(int[] via, int to) {
+        LinkedList<Flight> legs = new LinkedList<>();
+        int a = to;
+        for (int e = via[a]; e >= 0; e = via[a]) {
+            legs.addFirst(flights[e]);
+            a = source[e];
+        }
+        return new FlightRoute(airports[a], legs);
+    }
+}
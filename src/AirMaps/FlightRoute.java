@@ -0,0 +1,111 @@
+package AirMaps;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * An immutable route made of the flights taken on every leg. The flights, the
+ * cost and the times are resolved once when the route is created, so the
+ * getters do no work and routes are cheap to cache, compare and serialize.
+ */
+public final class FlightRoute implements Route, Serializable {
+
+	private static final long serialVersionUID = 2395874501936428730L;
+
+	private final List<String> stops;
+	private final List<String> flights;
+	private final List<Flight> legs;
+	private final int totalCost;
+	private final int airTime;
+	private final int connectingTime;
+
+	/**
+	 * Creates a route from the flights taken on every leg, in travel order. A route
+	 * with no flights stays at the given airport.
+	 */
+	public FlightRoute(String from, List<Flight> legs) {
+		List<String> stops = new ArrayList<>(legs.size() + 1);
+		List<String> flights = new ArrayList<>(legs.size());
+		int cost = 0, air = 0, connecting = 0;
+		stops.add(from);
+		Flight previous = null;
+		for (Flight f : legs) {
+			stops.add(f.getTo());
+			flights.add(f.getCode());
+			cost += f.getPrice();
+			air += f.getDuration();
+			if (previous != null) { // waiting time between the arrival of a flight and the departure of the next one
+				connecting += Flight.minutesBetween(previous.getArrivalMinute(), f.getDepartureMinute());
+			}
+			previous = f;
+		}
+		this.stops = Collections.unmodifiableList(stops);
+		this.flights = Collections.unmodifiableList(flights);
+		this.legs = Collections.unmodifiableList(new ArrayList<>(legs));
+		this.totalCost = cost;
+		this.airTime = air;
+		this.connectingTime = connecting;
+	}
+
+	/** Returns the flights taken on every leg of the route */
+	public List<Flight> getLegs() {
+		return legs;
+	}
+
+	@Override
+	public List<String> getStops() {
+		return stops;
+	}
+
+	@Override
+	public List<String> getFlights() {
+		return flights;
+	}
+
+	@Override
+	public int totalHop() {
+		return legs.size();
+	}
+
+	@Override
+	public int totalCost() {
+		return totalCost;
+	}
+
+	@Override
+	public int airTime() {
+		return airTime;
+	}
+
+	@Override
+	public int connectingTime() {
+		return connectingTime;
+	}
+
+	@Override
+	public int totalTime() {
+		return airTime + connectingTime;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof FlightRoute)) {
+			return false;
+		}
+		FlightRoute r = (FlightRoute) o;
+		return stops.equals(r.stops) && flights.equals(r.flights);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * stops.hashCode() + flights.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return String.join("-", stops) + " " + flights + " cost " + totalCost + " time " + totalTime();
+	}
+}
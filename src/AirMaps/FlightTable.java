@@ -0,0 +1,108 @@
+package AirMaps;
+
+import java.util.*;
+
+/**
+ * The flights of the dataset stored column by column, with the times and prices
+ * already parsed to primitives. Used to populate the graph without parsing the
+ * fields of every flight again.
+ */
+public final class FlightTable {
+	private int size;
+	private String[] code = new String[64]; // flight code
+	private String[] from = new String[64]; // airport code of departure
+	private String[] to = new String[64]; // airport code of arrival
+	private int[] departure = new int[64]; // departure time in minutes after midnight
+	private int[] arrival = new int[64]; // arrival time in minutes after midnight
+	private double[] price = new double[64]; // flight cost
+
+	/**
+	 * Creates a table from flight details (0: flight code, 1: airport code of
+	 * departure, 2: departure time, 3: airport code of arrival, 4: arrival time, 5:
+	 * flight cost), as returned by {@link FlightsParser#getFlights()}. Throws an
+	 * IllegalArgumentException if a time is not a time of the day (HHMM) or a
+	 * price is not a number of zero or more.
+	 */
+	public static FlightTable of(Collection<String[]> flights) {
+		FlightTable table = new FlightTable();
+		for (String[] f : flights) {
+			table.add(f[0], f[1], minutes(f[2]), f[3], minutes(f[4]), Double.parseDouble(f[5]));
+		}
+		return table;
+	}
+
+	// converts a time of the day (HHMM) to minutes after midnight, throwing an exception if it is not one
+	private static int minutes(String time) {
+		if (time == null || !time.matches("\\d{4}") || time.charAt(2) > '5' || Flight.minutes(time) >= 24 * 60) {
+			throw new IllegalArgumentException("Invalid time: " + time);
+		}
+		return Flight.minutes(time);
+	}
+
+	// every table holds valid times and prices, so populating from one cannot fail half way
+	void add(String code, String from, int departure, String to, int arrival, double price) {
+		if (departure < 0 || departure >= 24 * 60 || arrival < 0 || arrival >= 24 * 60) {
+			throw new IllegalArgumentException("Invalid time for flight " + code);
+		}
+		if (price < 0 || Double.isNaN(price)) {
+			throw new IllegalArgumentException("Invalid price for flight " + code + ": " + price);
+		}
+		if (size == this.code.length) {
+			int capacity = size * 2;
+			this.code = Arrays.copyOf(this.code, capacity);
+			this.from = Arrays.copyOf(this.from, capacity);
+			this.to = Arrays.copyOf(this.to, capacity);
+			this.departure = Arrays.copyOf(this.departure, capacity);
+			this.arrival = Arrays.copyOf(this.arrival, capacity);
+			this.price = Arrays.copyOf(this.price, capacity);
+		}
+		this.code[size] = code;
+		this.from[size] = from;
+		this.to[size] = to;
+		this.departure[size] = departure;
+		this.arrival[size] = arrival;
+		this.price[size] = price;
+		size++;
+	}
+
+	/** Returns the number of flights */
+	public int size() {
+		return size;
+	}
+
+	/** Returns the code of a flight */
+	public String code(int i) {
+		return code[i];
+	}
+
+	/** Returns the airport code of departure of a flight */
+	public String from(int i) {
+		return from[i];
+	}
+
+	/** Returns the airport code of arrival of a flight */
+	public String to(int i) {
+		return to[i];
+	}
+
+	/** Returns the departure time of a flight, in minutes after midnight */
+	public int departure(int i) {
+		return departure[i];
+	}
+
+	/** Returns the arrival time of a flight, in minutes after midnight */
+	public int arrival(int i) {
+		return arrival[i];
+	}
+
+	/** Returns the cost of a flight */
+	public double price(int i) {
+		return price[i];
+	}
+
+	/** Returns the details of a flight, in the same layout as {@link FlightsParser#getFlights()} */
+	public String[] row(int i) {
+		String cost = price[i] == Math.rint(price[i]) ? Long.toString((long) price[i]) : Double.toString(price[i]);
+		return new String[] { code[i], from[i], Flight.time(departure[i]), to[i], Flight.time(arrival[i]), cost };
+	}
+}
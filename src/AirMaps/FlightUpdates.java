@@ -0,0 +1,70 @@
+package AirMaps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of changes to the flights of a populated graph, applied together by
+ * {@link Routes#update(FlightUpdates)}: flights added, cancelled or repriced,
+ * identified by their flight codes. The changes are applied in the order they
+ * were made, and applying them again changes nothing more.
+ */
+public class FlightUpdates {
+
+    // the kinds of changes
+    enum Kind { ADD, REMOVE, REPRICE }
+
+    // one change of a flight
+    static class Change {
+        final Kind kind;
+        final String code;
+        final String from, departure, to, arrival; // null unless added
+        final double price; // unused if removed
+
+        Change(Kind kind, String code, String from, String departure, String to, String arrival, double price) {
+            this.kind = kind;
+            this.code = code;
+            this.from = from;
+            this.departure = departure;
+            this.to = to;
+            this.arrival = arrival;
+            this.price = price;
+        }
+
+        // returns true if two added flights are the same flight
+        boolean sameFlight(Change c) {
+            return c != null && code.equals(c.code) && from.equals(c.from) && to.equals(c.to) && departure.equals(c.departure)
+                    && arrival.equals(c.arrival) && price == c.price;
+        }
+    }
+
+    private final List<Change> changes = new ArrayList<>();
+
+    /**
+     * Adds a flight from one airport (airport code) to another, departing and
+     * arriving at given times (HHMM), for a price of zero or more. A flight with the
+     * same code is replaced.
+     */
+    public FlightUpdates add(String code, String from, String departure, String to, String arrival, double price) {
+        changes.add(new Change(Kind.ADD, code, from, departure, to, arrival, price));
+        return this;
+    }
+
+    /** Removes the flight with a flight code, if there is one */
+    public FlightUpdates remove(String code) {
+        changes.add(new Change(Kind.REMOVE, code, null, null, null, null, 0));
+        return this;
+    }
+
+    /** Changes the price of the flight with a flight code, to zero or more */
+    public FlightUpdates reprice(String code, double price) {
+        changes.add(new Change(Kind.REPRICE, code, null, null, null, null, price));
+        return this;
+    }
+
+    // returns the changes in the order they were made
+    List<Change> changes() {
+        return Collections.unmodifiableList(changes);
+    }
+}
@@ -1,9 +1,17 @@
 package AirMaps;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
 
 public class FlightsParser {
 
@@ -12,13 +20,12 @@ public class FlightsParser {
 			"TK", "UA" };
 
 	private static final File flightsDatasetFolder = new File("Dataset");
-	private static final File flightsDatasetFlights = new File(flightsDatasetFolder, "flights_data.csv");
-	private static final File flightsDatasetAirports = new File(flightsDatasetFolder, "airports_data.csv");
-	private static final File flightsDatasetAirlines = new File(flightsDatasetFolder, "airlines_data.csv");
+	static final String FLIGHTS = "flights_data.csv", AIRPORTS = "airports_data.csv", AIRLINES = "airlines_data.csv";
 
 	private HashSet<String[]> airlines;
 	private HashSet<String[]> airports;
-	private HashSet<String[]> flights;
+	private HashSet<String[]> flights; // built from the flight table when first asked for
+	private FlightTable flightTable;
 
 	/**
 	 * Reads the flights dataset for a given list of airline codes (the
@@ -27,61 +34,135 @@ public class FlightsParser {
 	 * This flights dataset was derived from the OpenFlights database.
 	 */
 	public FlightsParser(String[] includeAirlineCodes) throws FileNotFoundException, AirRoutesException {
+		this(flightsDatasetFolder, includeAirlineCodes);
+	}
+
+	/**
+	 * Same as above with the dataset files (airlines_data.csv, airports_data.csv
+	 * and flights_data.csv) of another folder, such as one written by
+	 * {@link NetworkGenerator}
+	 */
+	public FlightsParser(File datasetFolder, String[] includeAirlineCodes) throws FileNotFoundException, AirRoutesException {
+		File flightsDatasetFlights = new File(datasetFolder, FLIGHTS);
+		File flightsDatasetAirports = new File(datasetFolder, AIRPORTS);
+		File flightsDatasetAirlines = new File(datasetFolder, AIRLINES);
 		this.airlines = new HashSet<String[]>();
 		this.airports = new HashSet<String[]>();
-		this.flights = new HashSet<String[]>();
+		this.flightTable = new FlightTable();
 
 		// Adding airlines
 		HashSet<String> airlinesNeeded = new HashSet<String>();
 		for (String a : includeAirlineCodes) {
 			airlinesNeeded.add(a);
 		}
-		HashSet<String> airlinesAvailable = new HashSet<String>();
-		this.airlines = new HashSet<String[]>();
-		Scanner airlinesScanner = new Scanner(flightsDatasetAirlines);
-		while (airlinesScanner.hasNextLine()) {
-			String line = airlinesScanner.nextLine();
-			String[] fields = line.split(",");
-			String airlineCode = fields[0];
+		boolean[] airlinesAvailable = new boolean[1 << 16]; // indexed by the two bytes of the airline code
+		CsvReader airlinesReader = new CsvReader(flightsDatasetAirlines);
+		while (airlinesReader.next()) {
+			String airlineCode = airlinesReader.field(0);
 			boolean contained = airlinesNeeded.remove(airlineCode);
 			if (contained) {
-				airlinesAvailable.add(airlineCode);
-				this.airlines.add(fields);
+				if (airlinesReader.length(0) == 2) { // flight codes start with the two letters of the airline code
+					airlinesAvailable[airlineKey(airlinesReader.byteAt(0, 0), airlinesReader.byteAt(0, 1))] = true;
+				}
+				this.airlines.add(airlinesReader.row());
 			}
 		}
-		airlinesScanner.close();
 		if (!airlinesNeeded.isEmpty()) {
 			throw new AirRoutesException("Missing airline code(s): " + airlinesNeeded.toString());
 		}
 
-		// Adding flights, and building list of needed airport
+		// Adding flights, and building list of needed airport.
+		// the airline of a flight is checked on the raw bytes, so the flights of other airlines allocate nothing
 		HashSet<String> airportsNeeded = new HashSet<String>();
-		Scanner flightsScanner = new Scanner(flightsDatasetFlights);
-		while (flightsScanner.hasNextLine()) {
-			String line = flightsScanner.nextLine();
-			String[] fields = line.split(",");
-			String flightCode = fields[0];
-			String airlineCode = flightCode.substring(0, 2);
-			if (airlinesAvailable.contains(airlineCode)) {
-				String from = fields[1];
-				String to = fields[3];
+		HashSet<String> flightCodes = new HashSet<String>(); // a flight listed twice is only added once
+		CsvReader flightsReader = new CsvReader(flightsDatasetFlights);
+		while (flightsReader.next()) {
+			if (flightsReader.fields() < 6 || flightsReader.length(0) < 2
+					|| !airlinesAvailable[airlineKey(flightsReader.byteAt(0, 0), flightsReader.byteAt(0, 1))]) {
+				continue;
+			}
+			String flightCode = flightsReader.field(0);
+			if (flightCodes.add(flightCode)) {
+				String from = flightsReader.code(1);
+				String to = flightsReader.code(3);
 				airportsNeeded.add(from);
 				airportsNeeded.add(to);
-				this.flights.add(fields);
+				double price = flightsReader.number(5);
+				if (price < 0 || Double.isNaN(price)) { // the searches need prices of zero or more
+					throw new AirRoutesException("Invalid price: " + flightsReader.field(5));
+				}
+				this.flightTable.add(flightCode, from, flightsReader.time(2), to, flightsReader.time(4), price);
 			}
 		}
-		flightsScanner.close();
 
 		// Adding airports
-		Scanner airportsScanner = new Scanner(flightsDatasetAirports);
-		while (airportsScanner.hasNextLine()) {
-			String line = airportsScanner.nextLine();
-			String[] fields = line.split(",");
-			if (airportsNeeded.contains(fields[0])) {
+		Map<String, String[]> airportsAdded = new HashMap<String, String[]>(); // an airport listed twice is only added once
+		CsvReader airportsReader = new CsvReader(flightsDatasetAirports);
+		while (airportsReader.next()) {
+			String airportCode = airportsReader.code(0);
+			if (airportsNeeded.contains(airportCode) && !airportsAdded.containsKey(airportCode)) {
+				String[] fields = airportsReader.row();
+				airportsAdded.put(airportCode, fields);
 				this.airports.add(fields);
 			}
 		}
-		airportsScanner.close();
+	}
+
+	/**
+	 * Returns a checksum of the dataset files and of a list of airline codes, which
+	 * changes whenever the data read for these airline codes may change
+	 */
+	public static long checksum(String[] includeAirlineCodes) throws FileNotFoundException, AirRoutesException {
+		return checksum(flightsDatasetFolder, includeAirlineCodes);
+	}
+
+	/** Same as above for the dataset files of another folder */
+	public static long checksum(File datasetFolder, String[] includeAirlineCodes) throws FileNotFoundException, AirRoutesException {
+		CRC32 crc = new CRC32();
+		crc.update(String.join(",", new TreeSet<String>(Arrays.asList(includeAirlineCodes))).getBytes(StandardCharsets.UTF_8));
+		byte[] buffer = new byte[1 << 16];
+		for (File file : new File[] { new File(datasetFolder, AIRLINES), new File(datasetFolder, FLIGHTS), new File(datasetFolder, AIRPORTS) }) {
+			try (InputStream in = new FileInputStream(file)) {
+				for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+					crc.update(buffer, 0, n);
+				}
+			} catch (FileNotFoundException e) {
+				throw e;
+			} catch (IOException e) {
+				throw new AirRoutesException("Could not read " + file + ": " + e.getMessage());
+			}
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Returns a stamp of the dataset files and of a list of airline codes, made from
+	 * the size and last modification time of the files without reading them, which
+	 * changes whenever the files are written again
+	 */
+	public static long stamp(String[] includeAirlineCodes) throws FileNotFoundException {
+		return stamp(flightsDatasetFolder, includeAirlineCodes);
+	}
+
+	/** Same as above for the dataset files of another folder */
+	public static long stamp(File datasetFolder, String[] includeAirlineCodes) throws FileNotFoundException {
+		CRC32 crc = new CRC32();
+		crc.update(String.join(",", new TreeSet<String>(Arrays.asList(includeAirlineCodes))).getBytes(StandardCharsets.UTF_8));
+		for (File file : new File[] { new File(datasetFolder, AIRLINES), new File(datasetFolder, FLIGHTS), new File(datasetFolder, AIRPORTS) }) {
+			if (!file.isFile()) {
+				throw new FileNotFoundException(file.toString());
+			}
+			for (long value : new long[] { file.length(), file.lastModified() }) {
+				for (int i = 0; i < 8; i++) {
+					crc.update((int) (value >>> (8 * i)));
+				}
+			}
+		}
+		return crc.getValue();
+	}
+
+	private static int airlineKey(byte first, byte second) {
+		return (first & 0xff) << 8 | (second & 0xff);
 	}
 
 	/**
@@ -94,19 +175,33 @@ public class FlightsParser {
 
 	/**
 	 * Returns a hash set of airport details (0: airport code, 1: city, 2: airport
-	 * name)
+	 * name, and if the dataset has them, 3: latitude, 4: longitude)
 	 */
 	public HashSet<String[]> getAirports() {
 		return this.airports;
 	}
 
 	/**
-	 * Returns a hash set of flight details (0: flight code, 1: airline code, 2:
-	 * airport code of departure, 3: departure time GMT, 4: airport code of arrival,
-	 * 5: arrival time GMT, 6: flight cost)
+	 * Returns a hash set of flight details (0: flight code, 1: airport code of
+	 * departure, 2: departure time GMT, 3: airport code of arrival, 4: arrival time
+	 * GMT, 5: flight cost)
 	 */
 	public HashSet<String[]> getFlights() {
+		if (this.flights == null) {
+			this.flights = new HashSet<String[]>();
+			for (int i = 0; i < flightTable.size(); i++) {
+				this.flights.add(flightTable.row(i));
+			}
+		}
 		return this.flights;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Returns the flights with their times and costs already parsed, which can be
+	 * given to {@link AirRoutes#populate(HashSet, HashSet, FlightTable)}
+	 */
+	public FlightTable getFlightTable() {
+		return this.flightTable;
+	}
+
+}
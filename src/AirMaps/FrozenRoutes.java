@@ -0,0 +1,733 @@
+package AirMaps;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.jgrapht.Graph;
+
+/**
+ * An immutable, read-only copy of a populated flights graph, answering the route
+ * queries. Nothing is changed by a query: every search keeps its state in its own
+ * result and in per-thread scratch buffers, so any number of threads can query the
+ * same instance at the same time without locking.
+ *
+ * {@link AirRoutes} answers its queries with the FrozenRoutes of its last
+ * populate, and {@link ConcurrentRoutes} swaps a new one in on every populate.
+ */
+public final class FrozenRoutes {
+    private static final int LANDMARKS = 8; // hub airports of the landmark bounds
+
+    private final FlightIndex flightIndex; // cheapest and parallel flights of every leg
+    private final FlightNetwork network; // compact copy of the graph the searches run on
+    private final CostSearch costSearch; // Dijkstra search for the cheapest routes
+    private final HopSearch hopSearch; // breadth-first search for the least hops routes
+    private final ConnectionScan connectionScan; // timetable of the flights for the earliest arrival searches
+    private final ParetoSearch paretoSearch; // multi-criteria search over cost, hops and travel time
+    private final RouteMatrix matrix; // precomputed least cost and least hops routes, null if not precomputed
+    private final ContractionHierarchy hierarchy; // answers the least cost queries if not null and without matrix
+    private final double[] latitude, longitude; // coordinates of every airport in degrees, NaN if unknown
+    private volatile CostBounds bounds; // lower bounds for the A* searches, computed on the first one
+
+    // a query run with options
+    private interface Query<T> {
+        T run() throws AirRoutesException;
+    }
+
+    // copies the airports and flights of a graph, which can be changed afterwards without changing the copy.
+    // coordinates holds the latitude and longitude of the airports that have some.
+    FrozenRoutes(Graph<String, Flight> graph, Map<String, double[]> coordinates) {
+        this(index(graph), new FlightNetwork(graph), coordinates);
+    }
+
+    private FrozenRoutes(FlightIndex flightIndex, FlightNetwork network, Map<String, double[]> coordinates) {
+        this(flightIndex, network, coordinates(network, coordinates, 0), coordinates(network, coordinates, 1));
+    }
+
+    // the routes of a flight index and network read from a snapshot, with the latitude and longitude of every
+    // airport index, NaN if unknown
+    FrozenRoutes(FlightIndex flightIndex, FlightNetwork network, double[] latitude, double[] longitude) {
+        this.flightIndex = flightIndex;
+        this.network = network;
+        costSearch = new CostSearch(network);
+        hopSearch = new HopSearch(network);
+        connectionScan = new ConnectionScan(network);
+        paretoSearch = new ParetoSearch(network);
+        matrix = null;
+        hierarchy = null;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    private static FlightIndex index(Graph<String, Flight> graph) {
+        FlightIndex flightIndex = new FlightIndex();
+        for (Flight f : graph.edgeSet()) { // in the order the flights were added, which breaks the ties of prices
+            flightIndex.add(f);
+        }
+        return flightIndex;
+    }
+
+    // returns the latitudes (i = 0) or longitudes (1) of the airports of a network, NaN if unknown
+    private static double[] coordinates(FlightNetwork network, Map<String, double[]> coordinates, int i) {
+        double[] coordinate = new double[network.airportCount()];
+        for (int a = 0; a < coordinate.length; a++) {
+            double[] position = coordinates.get(network.airport(a));
+            coordinate[a] = position == null ? Double.NaN : position[i];
+        }
+        return coordinate;
+    }
+
+    // the same routes, answering the least cost and least hops queries from a matrix or a hierarchy of the same network
+    private FrozenRoutes(FrozenRoutes routes, RouteMatrix matrix, ContractionHierarchy hierarchy) {
+        flightIndex = routes.flightIndex;
+        network = routes.network;
+        costSearch = routes.costSearch;
+        hopSearch = routes.hopSearch;
+        connectionScan = routes.connectionScan;
+        paretoSearch = routes.paretoSearch;
+        latitude = routes.latitude;
+        longitude = routes.longitude;
+        bounds = routes.bounds;
+        this.matrix = matrix;
+        this.hierarchy = hierarchy;
+    }
+
+    // returns the lower bounds of the A* searches: by distance if every airport has coordinates, otherwise by landmarks
+    private CostBounds bounds() {
+        CostBounds b = bounds;
+        if (b == null) {
+            synchronized (this) {
+                b = bounds;
+                if (b == null) {
+                    boolean located = true;
+                    for (int a = 0; a < latitude.length; a++) {
+                        located &= !Double.isNaN(latitude[a]) && !Double.isNaN(longitude[a]);
+                    }
+                    b = located ? new GeoBounds(network, latitude, longitude) : new LandmarkBounds(network, costSearch, LANDMARKS);
+                    bounds = b;
+                }
+            }
+        }
+        return b;
+    }
+
+    // returns the index of an airport in the network, throwing an exception if the airport does not exist
+    private int airport(String code) throws AirRoutesException {
+        int a = network.indexOf(code);
+        if (a < 0) {
+            throw new AirRoutesException("Airport does not exist!");
+        }
+        return a;
+    }
+
+    // returns the network the searches run on
+    FlightNetwork network() {
+        return network;
+    }
+
+    // returns the cheapest and parallel flights of every leg
+    FlightIndex flightIndex() {
+        return flightIndex;
+    }
+
+    // returns the latitude of an airport index in degrees, NaN if unknown
+    double latitude(int a) {
+        return latitude[a];
+    }
+
+    // returns the longitude of an airport index in degrees, NaN if unknown
+    double longitude(int a) {
+        return longitude[a];
+    }
+
+    CostSearch costSearch() {
+        return costSearch;
+    }
+
+    HopSearch hopSearch() {
+        return hopSearch;
+    }
+
+    /**
+     * Returns the same routes, answering {@link #leastCost(String, String)} and
+     * {@link #leastHop(String, String)} by table lookups in the all-pairs matrix
+     * of this network, computed off-heap
+     */
+    public FrozenRoutes precompute() throws AirRoutesException {
+        return new FrozenRoutes(this, RouteMatrix.compute(this), hierarchy);
+    }
+
+    /**
+     * Same as above, the matrix being read from a memory-mapped file if it was
+     * made from the same data (checksum, see {@link FlightsParser#checksum(String[])}),
+     * otherwise computed into the file
+     */
+    public FrozenRoutes precompute(File file, long checksum) throws AirRoutesException {
+        return new FrozenRoutes(this, RouteMatrix.load(file, checksum, this), hierarchy);
+    }
+
+    /**
+     * Returns the same routes, answering {@link #leastCost(String, String)} with
+     * the contraction hierarchy of this network, built now
+     */
+    public FrozenRoutes contract() throws AirRoutesException {
+        return contract(ContractionHierarchy.build(this));
+    }
+
+    /**
+     * Same as above with a hierarchy built earlier, which must have been built from
+     * the same airports and flights
+     */
+    public FrozenRoutes contract(ContractionHierarchy hierarchy) throws AirRoutesException {
+        if (hierarchy.fingerprint() != network.fingerprint()) {
+            throw new AirRoutesException("The contraction hierarchy was built from other flights");
+        }
+        return new FrozenRoutes(this, matrix, hierarchy);
+    }
+
+    /** Returns the contraction hierarchy of the routes, or null if there is none */
+    public ContractionHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    /** Returns the all-pairs matrix of the routes, or null if it was not precomputed */
+    public RouteMatrix getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * Returns the flights from one airport (airport code) to another, in increasing
+     * departure time
+     */
+    public List<Flight> getFlights(String from, String to) {
+        return flightIndex.flights(from, to);
+    }
+
+    /** Returns a cheapest flight route from one airport (airport code) to another */
+    public Route leastCost(String from, String to) throws AirRoutesException {
+        int a = airport(from), b = airport(to); // if the airport does not exist in the network throw an exception
+        Route route;
+        if (matrix != null) {
+            route = matrix.leastCost(a, b);
+        } else if (hierarchy != null) {
+            route = hierarchy.route(network, a, b);
+        } else {
+            route = costSearch.getTree(a, b, null).route(b);
+        }
+        if (route == null) { // throw an exception if no path exists between two airports.
+            throw new AirRoutesException("No route exists between these two airports");
+        }
+        return route;
+    }
+
+    /**
+     * Returns a cheapest flight route from one airport (airport code) to another,
+     * found by a given search engine
+     */
+    public Route leastCost(String from, String to, CostEngine engine) throws AirRoutesException {
+        return leastCost(from, to, Collections.emptyList(), engine);
+    }
+
+    /**
+     * Returns a cheapest flight route from one airport (airport code) to another,
+     * excluding a list of airport (airport codes), found by a given search engine
+     */
+    public Route leastCost(String from, String to, List<String> excluding, CostEngine engine) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        if (excluding.contains(from) || excluding.contains(to)) { // the route cannot start or end in an excluded airport
+            throw new AirRoutesException("No route exists between these two airports");
+        }
+        boolean[] excluded = excluding.isEmpty() ? null : network.mask(excluding);
+        FlightRoute route;
+        switch (engine) {
+            case A_STAR:
+                route = costSearch.getTree(a, b, excluded, bounds()).route(b);
+                break;
+            case BIDIRECTIONAL:
+                route = costSearch.getBidirectionalTree(a, b, excluded).route(b);
+                break;
+            case CONTRACTION_HIERARCHY:
+                if (hierarchy == null) {
+                    throw new AirRoutesException("No contraction hierarchy, see contract()");
+                }
+                route = excluded == null ? hierarchy.route(network, a, b) : costSearch.getTree(a, b, excluded).route(b);
+                break;
+            default:
+                route = costSearch.getTree(a, b, excluded).route(b);
+        }
+        if (route == null) {
+            throw new AirRoutesException("No route exists between these two airports");
+        }
+        return route;
+    }
+
+    /**
+     * Returns a least connections flight route from one airport (airport code) to
+     * another, or null if there is none
+     */
+    public Route leastHop(String from, String to) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        if (matrix != null) {
+            return matrix.leastHop(a, b);
+        }
+        return hopSearch.getTree(a, b, null).route(b); // null if no route exists between the two airports
+    }
+
+    /**
+     * Returns a cheapest flight route from one airport (airport code) to another,
+     * excluding a list of airport (airport codes)
+     */
+    public Route leastCost(String from, String to, List<String> excluding) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        if (excluding.contains(from) || excluding.contains(to)) { // the route cannot start or end in an excluded airport
+            throw new AirRoutesException("No route exists between these two airports");
+        }
+        FlightRoute route = costSearch.getTree(a, b, network.mask(excluding)).route(b); // the search never goes through the excluded airports
+        if (route == null) { // throw an exception if no path exists between two airports.
+            throw new AirRoutesException("No route exists between these two airports");
+        }
+        return route;
+    }
+
+    /**
+     * Returns a least connections flight route from one airport (airport code) to
+     * another, excluding a list of airport (airport codes), or null if there is none
+     */
+    public Route leastHop(String from, String to, List<String> excluding) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        if (excluding.contains(from) || excluding.contains(to)) {
+            return null;
+        }
+        return hopSearch.getTree(a, b, network.mask(excluding)).route(b); // the search never expands the excluded airports
+    }
+
+    /**
+     * Returns a least connections flight route from one airport (airport code) to
+     * another, found by a given search engine, or null if there is none
+     */
+    public Route leastHop(String from, String to, HopEngine engine) throws AirRoutesException {
+        return leastHop(from, to, Collections.emptyList(), engine);
+    }
+
+    /**
+     * Returns a least connections flight route from one airport (airport code) to
+     * another, excluding a list of airport (airport codes), found by a given search
+     * engine, or null if there is none
+     */
+    public Route leastHop(String from, String to, List<String> excluding, HopEngine engine) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        if (excluding.contains(from) || excluding.contains(to)) {
+            return null;
+        }
+        boolean[] excluded = excluding.isEmpty() ? null : network.mask(excluding);
+        if (engine == HopEngine.BIDIRECTIONAL) {
+            return hopSearch.getBidirectionalTree(a, b, excluded).route(b);
+        }
+        return hopSearch.getTree(a, b, excluded).route(b);
+    }
+
+    /**
+     * Returns a cheapest flight route for every query, in the order of the queries,
+     * searching on the common fork-join pool. See
+     * {@link #leastCostBatch(List, ForkJoinPool)}.
+     */
+    public List<RouteResult> leastCostBatch(List<RouteQuery> queries) {
+        return leastCostBatch(queries, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a cheapest flight route for every query, in the order of the queries.
+     * The queries are grouped by departure airport and one search answers every
+     * query of a group, the groups being searched in parallel on a fork-join pool.
+     * A query failing does not stop the others: its result holds the error
+     * {@link #leastCost(String, String)} would have thrown.
+     */
+    public List<RouteResult> leastCostBatch(List<RouteQuery> queries, ForkJoinPool pool) {
+        return batch(queries, pool, true);
+    }
+
+    /**
+     * Returns a least connections flight route for every query, in the order of the
+     * queries, searching on the common fork-join pool. See
+     * {@link #leastHopBatch(List, ForkJoinPool)}.
+     */
+    public List<RouteResult> leastHopBatch(List<RouteQuery> queries) {
+        return leastHopBatch(queries, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a least connections flight route for every query, in the order of the
+     * queries, grouped by departure airport like
+     * {@link #leastCostBatch(List, ForkJoinPool)}. The route of a result is null if
+     * no route exists, as with {@link #leastHop(String, String)}.
+     */
+    public List<RouteResult> leastHopBatch(List<RouteQuery> queries, ForkJoinPool pool) {
+        return batch(queries, pool, false);
+    }
+
+    /**
+     * Returns a cheapest flight route for every query, like
+     * {@link #leastCostBatch(List)}, within the limits of some options. The
+     * queries not answered when the batch stops hold an error, and the result is
+     * then incomplete.
+     */
+    public QueryResult<List<RouteResult>> leastCostBatch(List<RouteQuery> queries, QueryOptions options) {
+        return batch(queries, ForkJoinPool.commonPool(), true, options);
+    }
+
+    /**
+     * Returns a least connections flight route for every query, like
+     * {@link #leastHopBatch(List)}, within the limits of some options. The queries
+     * not answered when the batch stops hold an error, and the result is then
+     * incomplete.
+     */
+    public QueryResult<List<RouteResult>> leastHopBatch(List<RouteQuery> queries, QueryOptions options) {
+        return batch(queries, ForkJoinPool.commonPool(), false, options);
+    }
+
+    // answers the queries grouped by departure airport, every group in its own task of the pool
+    private List<RouteResult> batch(List<RouteQuery> queries, ForkJoinPool pool, boolean cost) {
+        return batch(queries, pool, cost, null).getValue();
+    }
+
+    // same as above within the limits of some options (null if none), which every task checks on its own thread
+    private QueryResult<List<RouteResult>> batch(List<RouteQuery> queries, ForkJoinPool pool, boolean cost, QueryOptions options) {
+        RouteResult[] results = new RouteResult[queries.size()];
+        Map<String, List<Integer>> groups = new LinkedHashMap<>(); // positions of the queries of every departure airport
+        for (int i = 0; i < queries.size(); i++) {
+            groups.computeIfAbsent(queries.get(i).getFrom(), k -> new ArrayList<>()).add(i);
+        }
+        long deadline = options == null ? Long.MAX_VALUE : options.deadlineNanos(); // the same for every task
+        AtomicReference<QueryResult.Reason> stopped = new AtomicReference<>(); // why the first task stopped, if any
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(groups.size());
+        for (List<Integer> group : groups.values()) {
+            if (options == null) {
+                tasks.add(pool.submit(() -> answer(queries, group, cost, results))); // every task fills its own positions
+            } else {
+                tasks.add(pool.submit(() -> answer(queries, group, cost, results, options, deadline, stopped)));
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return new QueryResult<>(Arrays.asList(results), stopped.get());
+    }
+
+    // answers the queries of a group within the limits of some options, those not answered when it stops holding an error
+    private void answer(List<RouteQuery> queries, List<Integer> group, boolean cost, RouteResult[] results,
+            QueryOptions options, long deadline, AtomicReference<QueryResult.Reason> stopped) {
+        try {
+            options.start(deadline);
+            answer(queries, group, cost, results);
+        } catch (QueryOptions.Stopped e) {
+            stopped.compareAndSet(null, e.reason);
+            for (int i : group) {
+                results[i] = new RouteResult(queries.get(i), null, new AirRoutesException("Query stopped: " + e.reason));
+            }
+        } finally {
+            QueryOptions.end();
+        }
+    }
+
+    // answers the queries of a group sharing their departure airport with one search
+    private void answer(List<RouteQuery> queries, List<Integer> group, boolean cost, RouteResult[] results) {
+        int a = network.indexOf(queries.get(group.get(0)).getFrom());
+        int to = group.size() == 1 ? network.indexOf(queries.get(group.get(0)).getTo()) : -1; // a single query stops at its airport
+        CostSearch.Tree costs = a >= 0 && cost ? costSearch.getTree(a, to, null) : null;
+        HopSearch.Tree hops = a >= 0 && !cost ? hopSearch.getTree(a, to, null) : null;
+        for (int i : group) {
+            RouteQuery query = queries.get(i);
+            int b = network.indexOf(query.getTo());
+            if (a < 0 || b < 0) {
+                results[i] = new RouteResult(query, null, new AirRoutesException("Airport does not exist!"));
+            } else if (cost) {
+                FlightRoute route = costs.route(b);
+                AirRoutesException error = route == null ? new AirRoutesException("No route exists between these two airports") : null;
+                results[i] = new RouteResult(query, route, error);
+            } else {
+                results[i] = new RouteResult(query, hops.route(b), null);
+            }
+        }
+    }
+
+    /**
+     * Returns the airport code of a best airport for the meet up of two people
+     * located in two different airports (airport codes) accordingly to the routes
+     * costs
+     */
+    public String leastCostMeetUp(String at1, String at2) throws AirRoutesException {
+        String meetUp = meetUpCosts(at1, at2).best();
+        if (meetUp == null) {
+            throw new AirRoutesException("No meet up airport exists for these two airports");
+        }
+        return meetUp;
+    }
+
+    /**
+     * Returns the cheapest costs from two airports (airport codes) to every airport,
+     * which can be used to rank the meet up airports of two people
+     */
+    public MeetUpCosts meetUpCosts(String at1, String at2) throws AirRoutesException {
+        int a1 = airport(at1), a2 = airport(at2);
+        return new MeetUpCosts(network, a1, a2, costSearch.getTree(a1).costs(), costSearch.getTree(a2).costs());
+    }
+
+    /**
+     * Returns the airport code of a best airport for the meet up of two people
+     * located in two different airports (airport codes) accordingly to the number
+     * of connections
+     */
+    public String leastHopMeetUp(String at1, String at2) throws AirRoutesException {
+        return leastHopMeetUpRoutes(at1, at2).getAirport();
+    }
+
+    /**
+     * Returns a best airport for the meet up of two people located in two different
+     * airports (airport codes) accordingly to the number of connections, together
+     * with the least hops route of each person
+     */
+    public MeetUp leastHopMeetUpRoutes(String at1, String at2) throws AirRoutesException {
+        int a1 = airport(at1), a2 = airport(at2);
+        HopSearch.Tree tree1 = hopSearch.getTree(a1); // least hops routes from the first airport
+        HopSearch.Tree tree2 = hopSearch.getTree(a2); // least hops routes from the second airport
+        int meetUp = -1;
+        int min = Integer.MAX_VALUE;
+        for (int a = 0; a < network.airportCount(); a++) { // loop through all the airports
+            if (a != a1 && a != a2 && tree1.reaches(a) && tree2.reaches(a)) {
+                int hops = tree1.hops(a) + tree2.hops(a); // the sum of the hops of the two routes
+                if (hops < min) {
+                    min = hops;
+                    meetUp = a;
+                }
+            }
+        }
+        if (meetUp < 0) {
+            throw new AirRoutesException("No meet up airport exists for these two airports");
+        }
+        return new MeetUp(network.airport(meetUp), tree1.route(meetUp), tree2.route(meetUp));
+    }
+
+    /**
+     * Returns the airport code of a best airport for the earliest meet up of two
+     * people located in two different airports (airport codes) when departing at a
+     * given time
+     */
+    public String leastTimeMeetUp(String at1, String at2, String startTime) throws AirRoutesException {
+        int a1 = airport(at1), a2 = airport(at2);
+        ConnectionScan.Arrivals arrivals1 = connectionScan.earliest(a1, startTime); // earliest arrivals from the first airport
+        ConnectionScan.Arrivals arrivals2 = connectionScan.earliest(a2, startTime); // earliest arrivals from the second airport
+        int meetUp = -1;
+        int min = Integer.MAX_VALUE;
+        for (int a = 0; a < network.airportCount(); a++) { // loop through all the airports
+            if (a != a1 && a != a2) {
+                int t1 = arrivals1.travelTime(a);
+                int t2 = arrivals2.travelTime(a);
+                int t = Math.max(t1, t2); // the meet up happens when the second person arrives
+                if (t1 >= 0 && t2 >= 0 && t < min) {
+                    min = t;
+                    meetUp = a;
+                }
+            }
+        }
+        if (meetUp < 0) {
+            throw new AirRoutesException("No meet up airport exists for these two airports");
+        }
+        return network.airport(meetUp);
+    }
+
+    /**
+     * Returns the earliest route from one airport (airport code) to another when
+     * departing at a given time, or null if there is none
+     */
+    public Route earliestRoute(String from, String to, String startTime) throws AirRoutesException {
+        return connectionScan.earliest(airport(from), startTime).route(airport(to));
+    }
+
+    /**
+     * Returns the flight routes from one airport (airport code) to another,
+     * excluding a list of airport (airport codes), that no other route beats on
+     * cost, number of connections and total travel time together, in increasing
+     * cost. The search creates at most maxLabels labels, one per partial route
+     * kept: when it reaches them, the routes found so far are returned, every one
+     * of them Pareto-optimal, and the result is incomplete.
+     */
+    public QueryResult<List<Route>> paretoRoutes(String from, String to, List<String> excluding, int maxLabels) throws AirRoutesException {
+        return paretoRoutes(from, to, excluding, maxLabels, new QueryOptions());
+    }
+
+    /**
+     * Same as above, also within the limits of some options. If the query stops,
+     * the routes found so far are returned.
+     */
+    public QueryResult<List<Route>> paretoRoutes(String from, String to, List<String> excluding, int maxLabels, QueryOptions options) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        List<Route> routes = new ArrayList<>();
+        if (excluding.contains(from) || excluding.contains(to)) {
+            return new QueryResult<>(routes, null);
+        }
+        boolean[] excluded = excluding.isEmpty() ? null : network.mask(excluding);
+        try {
+            options.start();
+            return new QueryResult<>(routes, paretoSearch.search(a, b, excluded, maxLabels, options.getMaxResults(), routes));
+        } catch (QueryOptions.Stopped e) {
+            return new QueryResult<>(routes, e.reason);
+        } finally {
+            QueryOptions.end();
+        }
+    }
+
+    /**
+     * Returns the flight routes, in increasing price cost, below or equal to a
+     * given price, from one airport (airport code) to another, excluding a list of
+     * airport (airport codes)
+     */
+    public List<Route> allRoutesCost(String from, String to, List<String> excluding, int maxCost) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        Iterator<FlightRoute> iter = new CheapestRoutes(network, costSearch, a, b, network.mask(excluding), maxCost); // stops past maxCost
+        List<Route> routes = new ArrayList<>();
+        while (iter.hasNext()) {
+            routes.add(iter.next());
+        }
+        return routes;
+    }
+
+    /**
+     * Returns the flight routes lazily, in increasing price cost, from one airport
+     * (airport code) to another, excluding a list of airport (airport codes)
+     */
+    public Stream<Route> routesCost(String from, String to, List<String> excluding) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        Iterator<FlightRoute> iter = new CheapestRoutes(network, costSearch, a, b, network.mask(excluding), Double.POSITIVE_INFINITY);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iter, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns the flights routes, in increasing number of hops, below or equal to a
+     * given number of hops, from one airport (airport code) to another, excluding a
+     * list of airport (airport codes)
+     */
+    public List<Route> allRoutesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        Iterator<FlightRoute> iter = new HopRoutes(network, hopSearch, a, b, network.mask(excluding), maxHop); // already in increasing hops
+        List<Route> routes = new ArrayList<>();
+        while (iter.hasNext()) {
+            routes.add(iter.next());
+        }
+        return routes;
+    }
+
+    /**
+     * Returns the flights routes lazily, in increasing number of hops, below or
+     * equal to a given number of hops, from one airport (airport code) to another,
+     * excluding a list of airport (airport codes)
+     */
+    public Stream<Route> routesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        Iterator<FlightRoute> iter = new HopRoutes(network, hopSearch, a, b, network.mask(excluding), maxHop);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iter, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // runs a query within the limits of some options, its value being null if it stopped before the end
+    private static <T> QueryResult<T> limited(QueryOptions options, Query<T> query) throws AirRoutesException {
+        try {
+            options.start();
+            return new QueryResult<>(query.run(), null);
+        } catch (QueryOptions.Stopped e) {
+            return new QueryResult<>(null, e.reason);
+        } finally {
+            QueryOptions.end();
+        }
+    }
+
+    // collects the routes of an iterator within the limits of some options, keeping the routes found if it stops
+    private static QueryResult<List<Route>> collect(Iterator<FlightRoute> iter, QueryOptions options) {
+        List<Route> routes = new ArrayList<>();
+        try {
+            options.start();
+            while (iter.hasNext()) {
+                if (routes.size() == options.getMaxResults()) { // one more route exists
+                    return new QueryResult<>(routes, QueryResult.Reason.MAX_RESULTS);
+                }
+                routes.add(iter.next());
+            }
+            return new QueryResult<>(routes, null);
+        } catch (QueryOptions.Stopped e) {
+            return new QueryResult<>(routes, e.reason);
+        } finally {
+            QueryOptions.end();
+        }
+    }
+
+    /**
+     * Returns a cheapest flight route from one airport (airport code) to another,
+     * excluding a list of airport (airport codes), within the limits of some
+     * options. The route is null if the query stopped before finding it.
+     */
+    public QueryResult<Route> leastCost(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException {
+        return limited(options, () -> excluding.isEmpty() ? leastCost(from, to) : leastCost(from, to, excluding));
+    }
+
+    /**
+     * Returns a least connections flight route from one airport (airport code) to
+     * another, excluding a list of airport (airport codes), within the limits of
+     * some options. The route is null if there is none or if the query stopped
+     * before finding it.
+     */
+    public QueryResult<Route> leastHop(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException {
+        return limited(options, () -> excluding.isEmpty() ? leastHop(from, to) : leastHop(from, to, excluding));
+    }
+
+    /**
+     * Returns the airport code of a best airport for the meet up of two people
+     * accordingly to the routes costs, within the limits of some options. The
+     * airport is null if the query stopped before finding it.
+     */
+    public QueryResult<String> leastCostMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException {
+        return limited(options, () -> leastCostMeetUp(at1, at2));
+    }
+
+    /**
+     * Returns the airport code of a best airport for the meet up of two people
+     * accordingly to the number of connections, within the limits of some options.
+     * The airport is null if the query stopped before finding it.
+     */
+    public QueryResult<String> leastHopMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException {
+        return limited(options, () -> leastHopMeetUp(at1, at2));
+    }
+
+    /**
+     * Returns the airport code of a best airport for the earliest meet up of two
+     * people departing at a given time, within the limits of some options. The
+     * airport is null if the query stopped before finding it.
+     */
+    public QueryResult<String> leastTimeMeetUp(String at1, String at2, String startTime, QueryOptions options) throws AirRoutesException {
+        return limited(options, () -> leastTimeMeetUp(at1, at2, startTime));
+    }
+
+    /**
+     * Returns the flight routes, in increasing price cost, below or equal to a
+     * given price, from one airport (airport code) to another, excluding a list of
+     * airport (airport codes), within the limits of some options. If the query
+     * stops, the routes found so far are returned, the cheapest ones.
+     */
+    public QueryResult<List<Route>> allRoutesCost(String from, String to, List<String> excluding, int maxCost, QueryOptions options) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        return collect(new CheapestRoutes(network, costSearch, a, b, network.mask(excluding), maxCost), options);
+    }
+
+    /**
+     * Returns the flights routes, in increasing number of hops, below or equal to a
+     * given number of hops, from one airport (airport code) to another, excluding a
+     * list of airport (airport codes), within the limits of some options. If the
+     * query stops, the routes found so far are returned, the ones with the least
+     * hops.
+     */
+    public QueryResult<List<Route>> allRoutesHop(String from, String to, List<String> excluding, int maxHop, QueryOptions options) throws AirRoutesException {
+        int a = airport(from), b = airport(to);
+        return collect(new HopRoutes(network, hopSearch, a, b, network.mask(excluding), maxHop), options);
+    }
+}
@@ -0,0 +1,43 @@
+package AirMaps;
+
+// lower bounds of the cheapest costs from the great circle distances between the airports.
+// every flight costs at least the lowest price per kilometre of all the flights times its distance, and a route
+// flies at least the distance between its two ends, so that price per kilometre times the distance to the
+// arrival airport is a consistent lower bound.
+class GeoBounds implements CostBounds {
+    private static final double EARTH_RADIUS = 6371; // kilometres
+
+    private final double[] latitude, longitude; // in radians, by airport index
+    private final double rate; // lowest price per kilometre of the flights
+
+    // the coordinates are in degrees by airport index, and every airport must have some
+    GeoBounds(FlightNetwork network, double[] latitude, double[] longitude) {
+        this.latitude = new double[latitude.length];
+        this.longitude = new double[longitude.length];
+        for (int a = 0; a < latitude.length; a++) {
+            this.latitude[a] = Math.toRadians(latitude[a]);
+            this.longitude[a] = Math.toRadians(longitude[a]);
+        }
+        double rate = Double.POSITIVE_INFINITY;
+        for (int e = 0; e < network.flightCount(); e++) {
+            double distance = distance(network.source(e), network.target(e));
+            if (distance > 0) { // a flight between airports at the same place bounds no rate
+                rate = Math.min(rate, network.price(e) / distance);
+            }
+        }
+        this.rate = rate == Double.POSITIVE_INFINITY ? 0 : rate * (1 - 1e-9); // rounded down, to stay below the prices
+    }
+
+    // great circle distance between two airports in kilometres (haversine formula)
+    private double distance(int a, int b) {
+        double dLat = Math.sin((latitude[b] - latitude[a]) / 2);
+        double dLon = Math.sin((longitude[b] - longitude[a]) / 2);
+        double h = dLat * dLat + Math.cos(latitude[a]) * Math.cos(latitude[b]) * dLon * dLon;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    @Override
+    public double bound(int airport, int to) {
+        return rate * distance(airport, to);
+    }
+}
@@ -0,0 +1,18 @@
+package AirMaps;
+
+/**
+ * The search answering a least hops route query. Every engine finds a route of
+ * the same, least, number of hops; routes of equal hops may differ.
+ */
+public enum HopEngine {
+
+	/** Breadth-first search from the departure airport, the default */
+	BFS,
+
+	/**
+	 * Breadth-first searches from the departure airport and backwards from the
+	 * arrival airport, level by level on the side with the fewer airports to
+	 * expand, until they meet
+	 */
+	BIDIRECTIONAL
+}
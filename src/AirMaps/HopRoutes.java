@@ -0,0 +1,237 @@
+package AirMaps;
+
+import java.util.*;
+
+// enumerates the routes from one airport to another lazily in increasing number of hops, up to maxHop.
+// a route is a sequence of flights visiting every airport at most once, so parallel flights make different
+// routes. the routes of every number of hops are found by a depth-first search that never expands the excluded
+// airports and prunes every airport too many hops away from the arrival airport. from MEET_IN_THE_MIDDLE hops,
+// the search goes forward half way only and joins the route halves found backwards from the arrival airport.
+// only the search stack and the backward halves are kept in memory, never the routes already returned.
+class HopRoutes implements Iterator<FlightRoute> {
+    private static final int MEET_IN_THE_MIDDLE = 4;
+
+    private final FlightNetwork network;
+    private final int from, to, maxHop;
+    private final boolean[] excluded;
+    private final int[] fromHops; // least hops from the departure airport to every airport, -1 if unreachable
+    private final int[] toHops; // least hops from every airport to the arrival airport, -1 if unreachable
+    private final Map<Integer, List<int[]>[]> halves = new HashMap<>(); // backward halves by length, then by middle airport
+
+    private int hops; // number of hops of the routes of the current layer
+    private int forward; // number of hops found forward in the current layer, the rest are backward halves
+    private List<int[]>[] middle; // backward halves of the current layer by middle airport, null without halves
+    private final int[] path; // flights of the forward search path
+    private final int[] cursor; // position of the next flight to try at every depth of the search path
+    private final boolean[] onPath; // airports of the forward search path
+    private int depth = -1; // number of flights on the search path, -1 before a layer starts
+    private List<int[]> pending; // backward halves still to join at the end of the search path
+    private int pendingIndex;
+    private int[] next; // flights of the next route to return, null if not computed yet
+    private boolean finished;
+    private int steps; // steps of the depth-first searches, the query may have to stop every 1024 of them
+
+    HopRoutes(FlightNetwork network, HopSearch hopSearch, int from, int to, boolean[] excluded, int maxHop) {
+        this.network = network;
+        this.from = from;
+        this.to = to;
+        this.excluded = excluded;
+        this.maxHop = maxHop;
+        this.path = new int[Math.max(maxHop, 0)];
+        this.cursor = new int[Math.max(maxHop, 0) + 1];
+        this.onPath = new boolean[network.airportCount()];
+        this.finished = excluded[from] || excluded[to] || from == to;
+        HopSearch.Tree tree = hopSearch.getTree(from, -1, excluded);
+        this.fromHops = new int[network.airportCount()];
+        for (int a = 0; a < fromHops.length; a++) {
+            fromHops[a] = tree.hops(a);
+        }
+        this.toHops = backwardHops();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            next = advance();
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public FlightRoute next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SearchEffort.enumerated();
+        List<Flight> legs = new ArrayList<>(next.length);
+        for (int e : next) {
+            legs.add(network.flight(e));
+        }
+        next = null;
+        return new FlightRoute(network.airport(from), legs);
+    }
+
+    // least hops from every airport to the arrival airport, by a breadth-first search over the arriving flights
+    private int[] backwardHops() {
+        int[] hops = new int[network.airportCount()];
+        Arrays.fill(hops, -1);
+        int[] queue = new int[hops.length];
+        int head = 0, tail = 0;
+        hops[to] = 0;
+        queue[tail++] = to;
+        while (head < tail) {
+            int b = queue[head++];
+            for (int i = network.firstArriving(b), end = network.endArriving(b); i < end; i++) {
+                int a = network.source(network.arrivingFlight(i));
+                if (hops[a] < 0 && !excluded[a]) {
+                    hops[a] = hops[b] + 1;
+                    queue[tail++] = a;
+                }
+            }
+        }
+        return hops;
+    }
+
+    // returns true if a route of the current layer can go through an airport after a number of flights
+    private boolean feasible(int airport, int flights) {
+        if (excluded[airport] || onPath[airport] || toHops[airport] < 0) {
+            return false;
+        }
+        if (middle != null) { // the forward search ends at a middle airport, before the arrival airport
+            return airport != to && toHops[airport] <= hops - flights && (flights < forward || middle[airport] != null);
+        }
+        return flights == hops ? airport == to : airport != to && toHops[airport] <= hops - flights;
+    }
+
+    // finds the flights of the next route, or returns null if there are no more
+    private int[] advance() {
+        while (true) {
+            if ((++steps & 1023) == 0) {
+                QueryOptions.checkpoint();
+            }
+            if (pending != null) { // join the forward path with the backward halves of its last airport
+                while (pendingIndex < pending.size()) {
+                    int[] half = pending.get(pendingIndex++);
+                    if (disjoint(half)) {
+                        int[] route = Arrays.copyOf(path, forward + half.length);
+                        System.arraycopy(half, 0, route, forward, half.length);
+                        return route;
+                    }
+                }
+                pending = null;
+                pop();
+                continue;
+            }
+            if (depth < 0 && !startLayer()) {
+                return null;
+            }
+            int a = depth == 0 ? from : network.target(path[depth - 1]);
+            if (depth == forward) { // the end of the forward search path
+                if (middle == null) {
+                    int[] route = Arrays.copyOf(path, forward);
+                    pop();
+                    return route;
+                }
+                pending = middle[a];
+                pendingIndex = 0;
+                continue;
+            }
+            int end = network.endFlight(a);
+            while (cursor[depth] < end && !feasible(network.target(cursor[depth]), depth + 1)) {
+                cursor[depth]++;
+            }
+            if (cursor[depth] == end) { // every flight from this airport was tried
+                if (depth == 0) {
+                    onPath[from] = false;
+                    depth = -1;
+                } else {
+                    pop();
+                }
+                continue;
+            }
+            int e = cursor[depth]++;
+            path[depth] = e;
+            onPath[network.target(e)] = true;
+            depth++;
+            cursor[depth] = network.firstFlight(network.target(e));
+        }
+    }
+
+    // removes the last flight of the search path
+    private void pop() {
+        depth--;
+        onPath[network.target(path[depth])] = false;
+    }
+
+    // moves to the next number of hops, returns false when the routes of every number of hops were returned
+    private boolean startLayer() {
+        while (hops < maxHop) {
+            hops++;
+            if (toHops[from] < 0 || toHops[from] > hops) { // no route has so few hops
+                continue;
+            }
+            int backward = hops >= MEET_IN_THE_MIDDLE ? hops / 2 : 0;
+            forward = hops - backward;
+            middle = backward > 0 ? halves(backward) : null;
+            depth = 0;
+            cursor[0] = network.firstFlight(from);
+            onPath[from] = true;
+            return true;
+        }
+        return false;
+    }
+
+    // returns true if the airports of a backward half after its middle airport are not on the forward path
+    private boolean disjoint(int[] half) {
+        for (int e : half) {
+            if (onPath[network.target(e)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // returns the backward halves of a given number of flights ending at the arrival airport, by middle airport
+    private List<int[]>[] halves(int length) {
+        List<int[]>[] byMiddle = halves.get(length);
+        if (byMiddle == null) {
+            @SuppressWarnings("unchecked")
+            List<int[]>[] found = (List<int[]>[]) new List<?>[network.airportCount()];
+            int[] half = new int[length];
+            boolean[] used = new boolean[network.airportCount()];
+            used[to] = true;
+            collectHalves(to, length, half, used, found);
+            byMiddle = found;
+            halves.put(length, byMiddle);
+        }
+        return byMiddle;
+    }
+
+    // depth-first search backwards from an airport, filling half from its end
+    private void collectHalves(int b, int remaining, int[] half, boolean[] used, List<int[]>[] found) {
+        if ((++steps & 1023) == 0) {
+            QueryOptions.checkpoint();
+        }
+        for (int i = network.firstArriving(b), end = network.endArriving(b); i < end; i++) {
+            int e = network.arrivingFlight(i);
+            int a = network.source(e);
+            if (used[a] || excluded[a] || a == from || fromHops[a] < 0) {
+                continue;
+            }
+            half[remaining - 1] = e;
+            if (remaining == 1) {
+                if (fromHops[a] <= half.length + 1) { // the middle airport can be reached by the forward search
+                    if (found[a] == null) {
+                        found[a] = new ArrayList<>();
+                    }
+                    found[a].add(half.clone());
+                }
+            } else {
+                used[a] = true;
+                collectHalves(a, remaining - 1, half, used, found);
+                used[a] = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package AirMaps;
+
+import java.util.Arrays;
+
+// breadth-first search over the flight network, used to find the routes with the fewest changeovers.
+// every airport and flight is visited at most once, so a search costs O(V+E).
+// the queues and backward hops are kept per thread and reused by its next search, so any number of threads can
+// search at the same time and a search only allocates its tree.
+class HopSearch {
+    private final FlightNetwork network;
+    private final ThreadLocal<Scratch> scratch;
+
+    // the buffers of the searches of one thread
+    private static class Scratch {
+        private final int[] queue, backQueue; // the backward ones are used by the bidirectional searches
+        private final int[] backReached; // the airports reached backwards by the current search are marked with its number
+        private final int[] backHops; // number of hops from every airport reached backwards to the arrival airport
+        private final int[] backVia; // the flight taken from every airport reached backwards towards the arrival airport
+        private int search;
+
+        private Scratch(int airports) {
+            queue = new int[airports];
+            backQueue = new int[airports];
+            backReached = new int[airports];
+            backHops = new int[airports];
+            backVia = new int[airports];
+        }
+
+        // starts a new search, returning its number
+        private int next() {
+            if (++search == Integer.MAX_VALUE) { // the marks of the earlier searches would come back
+                Arrays.fill(backReached, 0);
+                search = 1;
+            }
+            return search;
+        }
+    }
+
+    HopSearch(FlightNetwork network) {
+        this.network = network;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(network.airportCount()));
+    }
+
+    // the least hops routes from one airport, as found by a breadth-first search
+    static class Tree {
+        private final FlightNetwork network;
+        private final int[] hops; // number of hops to every airport, -1 if it was not reached
+        private final int[] via; // the flight taken to reach every airport, -1 if none
+        private int settled; // number of airports expanded by the search
+
+        private Tree(FlightNetwork network, int from) {
+            this.network = network;
+            this.hops = new int[network.airportCount()];
+            this.via = new int[network.airportCount()];
+            Arrays.fill(hops, -1);
+            Arrays.fill(via, -1);
+            hops[from] = 0;
+        }
+
+        // returns true if a route to the airport was found
+        boolean reaches(int airport) {
+            return hops[airport] >= 0;
+        }
+
+        // returns the number of hops of the least hops route to the airport, or -1 if it was not reached
+        int hops(int airport) {
+            return hops[airport];
+        }
+
+        // returns the flight taken to reach the airport, -1 if none
+        int via(int airport) {
+            return via[airport];
+        }
+
+        // returns the number of airports expanded by the search, a measure of its work
+        int settled() {
+            return settled;
+        }
+
+        // returns the least hops route to the airport, or null if it was not reached
+        FlightRoute route(int airport) {
+            return reaches(airport) ? network.route(via, airport) : null;
+        }
+    }
+
+    // returns the least hops routes from one airport to every airport
+    Tree getTree(int from) {
+        return search(from, -1, null);
+    }
+
+    // returns the least hops routes from one airport, searching until the arrival airport is reached and
+    // never going through the excluded airports (excluded may be null)
+    Tree getTree(int from, int to, boolean[] excluded) {
+        return search(from, to, excluded);
+    }
+
+    private Tree search(int from, int to, boolean[] excluded) {
+        Tree tree = new Tree(network, from);
+        int[] hops = tree.hops;
+        int[] queue = scratch.get().queue; // every airport is queued at most once
+        int head = 0, tail = 0;
+        long relaxed = 0; // flights looked at, reported to the SearchEffort of the thread
+        queue[tail++] = from;
+        while (head < tail && (to < 0 || hops[to] < 0)) { // stop once the arrival airport (if any) is reached
+            int a = queue[head++];
+            tree.settled++;
+            if ((tree.settled & 63) == 0) {
+                QueryOptions.checkpoint();
+            }
+            relaxed += network.endFlight(a) - network.firstFlight(a);
+            for (int e = network.firstFlight(a), end = network.endFlight(a); e < end; e++) {
+                int b = network.target(e);
+                if (hops[b] >= 0 || (excluded != null && excluded[b])) { // parallel flights and visited airports are skipped
+                    continue;
+                }
+                hops[b] = hops[a] + 1;
+                tree.via[b] = e;
+                queue[tail++] = b;
+            }
+        }
+        SearchEffort.searched(tree.settled, relaxed);
+        return tree;
+    }
+
+    // returns a least hops route from one airport to another by a bidirectional breadth-first search: a search
+    // forwards from the departure airport and a search backwards over the arriving flights from the arrival airport,
+    // the side with the smaller frontier expanding its next level, never going through the excluded airports
+    // (excluded may be null). as no airport was reached by both sides before, the first airport reached by both is
+    // on a least hops route. the returned tree only holds the routes found forwards and the route to the arrival
+    // airport, its settled count being the airports expanded by both.
+    Tree getBidirectionalTree(int from, int to, boolean[] excluded) {
+        Tree tree = new Tree(network, from);
+        int[] hops = tree.hops;
+        Scratch buffers = scratch.get();
+        int search = buffers.next();
+        int[] backReached = buffers.backReached, backHops = buffers.backHops, backVia = buffers.backVia;
+        backReached[to] = search;
+        backHops[to] = 0;
+        int[] queue = buffers.queue, backQueue = buffers.backQueue; // both hold the levels expanded so far, then the next one
+        int head = 0, tail = 0, backHead = 0, backTail = 0;
+        long relaxed = 0;
+        queue[tail++] = from;
+        backQueue[backTail++] = to;
+        int meet = from == to ? -1 : -2; // the flight where the two sides met, -1 if none is needed
+        while (meet == -2 && head < tail && backHead < backTail) {
+            if (tail - head <= backTail - backHead) { // expand the forward level
+                for (int level = tail; meet == -2 && head < level; head++) {
+                    int a = queue[head];
+                    tree.settled++;
+                    if ((tree.settled & 63) == 0) {
+                        QueryOptions.checkpoint();
+                    }
+                    relaxed += network.endFlight(a) - network.firstFlight(a);
+                    for (int e = network.firstFlight(a), end = network.endFlight(a); e < end; e++) {
+                        int b = network.target(e);
+                        if (hops[b] >= 0 || (excluded != null && excluded[b])) {
+                            continue;
+                        }
+                        hops[b] = hops[a] + 1;
+                        tree.via[b] = e;
+                        if (backReached[b] == search) {
+                            meet = e;
+                            break;
+                        }
+                        queue[tail++] = b;
+                    }
+                }
+            } else { // expand the backward level
+                for (int level = backTail; meet == -2 && backHead < level; backHead++) {
+                    int b = backQueue[backHead];
+                    tree.settled++;
+                    if ((tree.settled & 63) == 0) {
+                        QueryOptions.checkpoint();
+                    }
+                    relaxed += network.endArriving(b) - network.firstArriving(b);
+                    for (int i = network.firstArriving(b), end = network.endArriving(b); i < end; i++) {
+                        int e = network.arrivingFlight(i);
+                        int a = network.source(e);
+                        if (backReached[a] == search || (excluded != null && excluded[a])) {
+                            continue;
+                        }
+                        backReached[a] = search;
+                        backHops[a] = backHops[b] + 1;
+                        backVia[a] = e;
+                        if (hops[a] >= 0) {
+                            meet = e;
+                            break;
+                        }
+                        backQueue[backTail++] = a;
+                    }
+                }
+            }
+        }
+        if (meet >= 0) { // the route to the meeting flight is in the tree, add the route from it found backwards
+            int b = network.target(meet);
+            hops[b] = hops[network.source(meet)] + 1;
+            tree.via[b] = meet;
+            for (int a = b; a != to; a = network.target(backVia[a])) {
+                int e = backVia[a];
+                hops[network.target(e)] = hops[a] + 1;
+                tree.via[network.target(e)] = e;
+            }
+        }
+        SearchEffort.searched(tree.settled, relaxed);
+        return tree;
+    }
+}
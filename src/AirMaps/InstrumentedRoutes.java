@@ -0,0 +1,209 @@
+package AirMaps;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Routes} recording the metrics of the queries of another one in a
+ * {@link MetricsRegistry}, by operation (the name of the Routes method): the
+ * time of every query, whether it failed, the airports settled and flights
+ * relaxed by its searches, the routes it enumerated and the bytes it allocated.
+ *
+ * The searches are measured on the thread asking the query, so the work of the
+ * batches, searched on other threads, is not counted, only their time. The lazy
+ * streams are not measured. While disabled, a query costs one more volatile read
+ * than the routes it wraps. This class is thread-safe if the routes it wraps are.
+ */
+public class InstrumentedRoutes implements Routes {
+    private static final com.sun.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+            ? (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean() : null; // measures the allocations
+
+    private final Routes routes;
+    private final MetricsRegistry metrics;
+    private volatile boolean enabled = true;
+    private final OperationMetrics populate, update, leastCost, leastHop, leastCostBatch, leastHopBatch;
+    private final OperationMetrics leastCostMeetUp, leastHopMeetUp, leastTimeMeetUp, allRoutesCost, allRoutesHop;
+
+    // a query of the wrapped routes, throwing an AirRoutesException or nothing
+    private interface Query<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /** Records the metrics of the queries of some routes in a registry */
+    public InstrumentedRoutes(Routes routes, MetricsRegistry metrics) {
+        this.routes = routes;
+        this.metrics = metrics;
+        populate = metrics.operation("populate");
+        update = metrics.operation("update");
+        leastCost = metrics.operation("leastCost");
+        leastHop = metrics.operation("leastHop");
+        leastCostBatch = metrics.operation("leastCostBatch");
+        leastHopBatch = metrics.operation("leastHopBatch");
+        leastCostMeetUp = metrics.operation("leastCostMeetUp");
+        leastHopMeetUp = metrics.operation("leastHopMeetUp");
+        leastTimeMeetUp = metrics.operation("leastTimeMeetUp");
+        allRoutesCost = metrics.operation("allRoutesCost");
+        allRoutesHop = metrics.operation("allRoutesHop");
+    }
+
+    /** Returns the registry the metrics are recorded in */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /** Starts or stops recording the metrics, started at first */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** Returns true if the metrics are recorded */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // runs a query of the wrapped routes, recording its metrics if enabled
+    private <T, E extends Exception> T measured(OperationMetrics operation, Query<T, E> query) throws E {
+        if (!enabled) {
+            return query.run();
+        }
+        long allocated = allocatedBytes();
+        SearchEffort effort = SearchEffort.start();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T value = query.run();
+            failed = false;
+            return value;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            effort.stop();
+            long after = allocatedBytes();
+            operation.record(nanos, failed, effort.settled, effort.relaxed, effort.paths, allocated < 0 || after < 0 ? 0 : after - allocated);
+        }
+    }
+
+    // the bytes allocated by this thread so far, -1 if the JVM does not measure it
+    private static long allocatedBytes() {
+        return threads != null && threads.isThreadAllocatedMemoryEnabled() ? threads.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    public boolean populate(HashSet<String[]> airlines, HashSet<String[]> airports, HashSet<String[]> routes) {
+        return measured(populate, () -> this.routes.populate(airlines, airports, routes));
+    }
+
+    public boolean update(FlightUpdates updates) throws AirRoutesException {
+        return measured(update, () -> routes.update(updates));
+    }
+
+    @Override
+    public Route leastCost(String from, String to) throws AirRoutesException {
+        return measured(leastCost, () -> routes.leastCost(from, to));
+    }
+
+    @Override
+    public Route leastHop(String from, String to) throws AirRoutesException {
+        return measured(leastHop, () -> routes.leastHop(from, to));
+    }
+
+    @Override
+    public Route leastCost(String from, String to, List<String> excluding) throws AirRoutesException {
+        return measured(leastCost, () -> routes.leastCost(from, to, excluding));
+    }
+
+    @Override
+    public Route leastHop(String from, String to, List<String> excluding) throws AirRoutesException {
+        return measured(leastHop, () -> routes.leastHop(from, to, excluding));
+    }
+
+    @Override
+    public List<RouteResult> leastCostBatch(List<RouteQuery> queries) {
+        return measured(leastCostBatch, () -> routes.leastCostBatch(queries));
+    }
+
+    @Override
+    public List<RouteResult> leastHopBatch(List<RouteQuery> queries) {
+        return measured(leastHopBatch, () -> routes.leastHopBatch(queries));
+    }
+
+    @Override
+    public String leastCostMeetUp(String at1, String at2) throws AirRoutesException {
+        return measured(leastCostMeetUp, () -> routes.leastCostMeetUp(at1, at2));
+    }
+
+    @Override
+    public String leastHopMeetUp(String at1, String at2) throws AirRoutesException {
+        return measured(leastHopMeetUp, () -> routes.leastHopMeetUp(at1, at2));
+    }
+
+    @Override
+    public String leastTimeMeetUp(String at1, String at2, String startTime) throws AirRoutesException {
+        return measured(leastTimeMeetUp, () -> routes.leastTimeMeetUp(at1, at2, startTime));
+    }
+
+    @Override
+    public List<Route> allRoutesCost(String from, String to, List<String> excluding, int maxCost) throws AirRoutesException {
+        return measured(allRoutesCost, () -> routes.allRoutesCost(from, to, excluding, maxCost));
+    }
+
+    @Override
+    public Stream<Route> routesCost(String from, String to, List<String> excluding) throws AirRoutesException {
+        return routes.routesCost(from, to, excluding);
+    }
+
+    @Override
+    public List<Route> allRoutesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException {
+        return measured(allRoutesHop, () -> routes.allRoutesHop(from, to, excluding, maxHop));
+    }
+
+    @Override
+    public Stream<Route> routesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException {
+        return routes.routesHop(from, to, excluding, maxHop);
+    }
+
+    @Override
+    public QueryResult<Route> leastCost(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException {
+        return measured(leastCost, () -> routes.leastCost(from, to, excluding, options));
+    }
+
+    @Override
+    public QueryResult<Route> leastHop(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException {
+        return measured(leastHop, () -> routes.leastHop(from, to, excluding, options));
+    }
+
+    @Override
+    public QueryResult<List<RouteResult>> leastCostBatch(List<RouteQuery> queries, QueryOptions options) {
+        return measured(leastCostBatch, () -> routes.leastCostBatch(queries, options));
+    }
+
+    @Override
+    public QueryResult<List<RouteResult>> leastHopBatch(List<RouteQuery> queries, QueryOptions options) {
+        return measured(leastHopBatch, () -> routes.leastHopBatch(queries, options));
+    }
+
+    @Override
+    public QueryResult<String> leastCostMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException {
+        return measured(leastCostMeetUp, () -> routes.leastCostMeetUp(at1, at2, options));
+    }
+
+    @Override
+    public QueryResult<String> leastHopMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException {
+        return measured(leastHopMeetUp, () -> routes.leastHopMeetUp(at1, at2, options));
+    }
+
+    @Override
+    public QueryResult<String> leastTimeMeetUp(String at1, String at2, String startTime, QueryOptions options) throws AirRoutesException {
+        return measured(leastTimeMeetUp, () -> routes.leastTimeMeetUp(at1, at2, startTime, options));
+    }
+
+    @Override
+    public QueryResult<List<Route>> allRoutesCost(String from, String to, List<String> excluding, int maxCost, QueryOptions options) throws AirRoutesException {
+        return measured(allRoutesCost, () -> routes.allRoutesCost(from, to, excluding, maxCost, options));
+    }
+
+    @Override
+    public QueryResult<List<Route>> allRoutesHop(String from, String to, List<String> excluding, int maxHop, QueryOptions options) throws AirRoutesException {
+        return measured(allRoutesHop, () -> routes.allRoutesHop(from, to, excluding, maxHop, options));
+    }
+}
@@ -0,0 +1,51 @@
+package AirMaps;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+// lower bounds of the cheapest costs from the costs to and from a few landmark airports (ALT).
+// by the triangle inequality, the cost from v to t is at least cost(L, t) - cost(L, v) and cost(v, L) - cost(t, L)
+// for every landmark L. the landmarks are the hub airports with the most flights, and their costs are computed
+// once by a forward and a backward Dijkstra search each.
+class LandmarkBounds implements CostBounds {
+    private final double[][] from; // cheapest cost from every landmark to every airport
+    private final double[][] to; // cheapest cost from every airport to every landmark
+
+    LandmarkBounds(FlightNetwork network, CostSearch costSearch, int landmarks) {
+        Integer[] hubs = new Integer[network.airportCount()];
+        for (int a = 0; a < hubs.length; a++) {
+            hubs[a] = a;
+        }
+        Arrays.sort(hubs, Comparator.comparingInt((Integer a) -> flights(network, a)).reversed());
+        int count = Math.min(landmarks, hubs.length);
+        from = new double[count][];
+        to = new double[count][];
+        for (int i = 0; i < count; i++) {
+            from[i] = costSearch.getTree(hubs[i]).costs();
+            to[i] = costSearch.costsTo(hubs[i]);
+        }
+    }
+
+    // number of flights departing from and arriving at an airport
+    private static int flights(FlightNetwork network, int a) {
+        return network.endFlight(a) - network.firstFlight(a) + network.endArriving(a) - network.firstArriving(a);
+    }
+
+    @Override
+    public double bound(int airport, int to) {
+        double bound = 0;
+        for (int i = 0; i < from.length; i++) {
+            // an airport reached from a landmark that does not reach the arrival airport cannot reach it either (infinity);
+            // differences of two infinities are not a number and never raise the bound
+            double d1 = from[i][to] - from[i][airport];
+            double d2 = this.to[i][airport] - this.to[i][to];
+            if (d1 > bound) {
+                bound = d1;
+            }
+            if (d2 > bound) {
+                bound = d2;
+            }
+        }
+        return bound;
+    }
+}
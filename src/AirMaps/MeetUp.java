@@ -0,0 +1,32 @@
+package AirMaps;
+
+/**
+ * A meet up airport for two people located in two different airports, with the
+ * route each of them takes to get there.
+ */
+public class MeetUp {
+    private final String airport;
+    private final Route route1;
+    private final Route route2;
+
+    public MeetUp(String airport, Route route1, Route route2) {
+        this.airport = airport;
+        this.route1 = route1;
+        this.route2 = route2;
+    }
+
+    /** Returns the airport code of the meet up airport */
+    public String getAirport() {
+        return this.airport;
+    }
+
+    /** Returns the route from the first airport to the meet up airport */
+    public Route getRoute1() {
+        return this.route1;
+    }
+
+    /** Returns the route from the second airport to the meet up airport */
+    public Route getRoute2() {
+        return this.route2;
+    }
+}
@@ -0,0 +1,72 @@
+package AirMaps;
+
+import java.util.*;
+
+/**
+ * The cheapest cost from each of two airports to every airport of the network.
+ * Both cost trees are computed once, with a single-source Dijkstra search from
+ * each airport, and the meet up candidates are ranked by the sum of the two costs.
+ */
+public class MeetUpCosts {
+    private final FlightNetwork network;
+    private final int at1, at2;
+    private final double[] costs1, costs2; // cheapest cost from the first and second airport, infinity if unreachable
+
+    MeetUpCosts(FlightNetwork network, int at1, int at2, double[] costs1, double[] costs2) {
+        this.network = network;
+        this.at1 = at1;
+        this.at2 = at2;
+        this.costs1 = costs1;
+        this.costs2 = costs2;
+    }
+
+    // returns true if an airport can be used to meet up: reachable from both airports and not one of them
+    private boolean isCandidate(int i) {
+        return i != at1 && i != at2 && costs1[i] != Double.POSITIVE_INFINITY && costs2[i] != Double.POSITIVE_INFINITY;
+    }
+
+    /** Returns the airport codes, in the order used by the cost arrays */
+    public List<String> getAirports() {
+        return network.airports();
+    }
+
+    /** Returns the cheapest cost from the first airport to every airport */
+    public double[] getCosts1() {
+        return costs1.clone();
+    }
+
+    /** Returns the cheapest cost from the second airport to every airport */
+    public double[] getCosts2() {
+        return costs2.clone();
+    }
+
+    /** Returns the meet up airport with the cheapest total cost, or null if there is none */
+    public String best() {
+        int best = -1;
+        for (int i = 0; i < costs1.length; i++) {
+            if (isCandidate(i) && (best < 0 || costs1[i] + costs2[i] < costs1[best] + costs2[best])) {
+                best = i;
+            }
+        }
+        return best < 0 ? null : network.airport(best);
+    }
+
+    /** Returns up to k meet up airports, in increasing total cost */
+    public List<String> best(int k) {
+        // a max-heap holding the k cheapest candidates seen so far
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Comparator.comparingDouble((Integer i) -> costs1[i] + costs2[i]).reversed());
+        for (int i = 0; i < costs1.length && k > 0; i++) {
+            if (isCandidate(i)) {
+                heap.add(i);
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+            }
+        }
+        LinkedList<String> best = new LinkedList<>();
+        while (!heap.isEmpty()) {
+            best.addFirst(network.airport(heap.poll()));
+        }
+        return new ArrayList<>(best);
+    }
+}
@@ -0,0 +1,18 @@
+package AirMaps;
+
+import java.util.Map;
+
+/**
+ * Where {@link InstrumentedRoutes} records the metrics of its queries, one
+ * {@link OperationMetrics} per operation. {@link QueryMetrics} keeps them in
+ * memory and shows them through JMX; another implementation can hand them to
+ * another monitoring system.
+ */
+public interface MetricsRegistry {
+
+	/** Returns the metrics of an operation, created the first time it is asked for */
+	OperationMetrics operation(String name);
+
+	/** Returns the metrics of every operation, by name */
+	Map<String, OperationMetrics> getOperations();
+}
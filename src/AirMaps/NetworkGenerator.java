@@ -0,0 +1,181 @@
+package AirMaps;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes a synthetic flights dataset, in the files and formats read by
+ * {@link FlightsParser#FlightsParser(File, String[])}, for testing and
+ * benchmarking networks larger than the bundled one. The same settings and seed
+ * always write the same files.
+ *
+ * Airports are spread over the globe and ranked by popularity: the endpoints of
+ * every flight are drawn with a probability of 1 / rank ^ hubSkew, so a few hubs
+ * get most flights (a skew of 0 draws the airports uniformly). A flight lasts its
+ * great circle distance at cruising speed plus the ground time, and costs a price
+ * per minute of it, both spread by a log-normal noise. Departures are uniform over
+ * the day.
+ */
+public class NetworkGenerator {
+    private static final String SYMBOLS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789"; // of the airline and airport codes
+    private static final double EARTH_RADIUS = 6371; // kilometres
+
+    private long seed = 1;
+    private int airports = 1000, airlines = 10, flightsPerDay = 10000;
+    private double hubSkew = 1;
+    private double speed = 800; // km per hour
+    private int groundMinutes = 30;
+    private double durationSpread = 0.1, pricePerMinute = 1, priceSpread = 0.3;
+
+    /** Sets the seed of the random numbers, 1 by default */
+    public NetworkGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /** Sets the number of airports, up to 36^3 (three letter or digit codes), 1000 by default */
+    public NetworkGenerator airports(int airports) {
+        this.airports = airports;
+        return this;
+    }
+
+    /** Sets the number of airlines, up to 36^2 (two letter or digit codes), 10 by default */
+    public NetworkGenerator airlines(int airlines) {
+        this.airlines = airlines;
+        return this;
+    }
+
+    /** Sets the number of flights, every one of them flown once a day, 10000 by default */
+    public NetworkGenerator flightsPerDay(int flightsPerDay) {
+        this.flightsPerDay = flightsPerDay;
+        return this;
+    }
+
+    /** Sets the exponent of the popularity of the airports by rank, 1 by default */
+    public NetworkGenerator hubSkew(double hubSkew) {
+        this.hubSkew = hubSkew;
+        return this;
+    }
+
+    /**
+     * Sets the cruising speed (km per hour), the minutes on the ground added to
+     * every flight and the spread (standard deviation of the logarithm) of the
+     * durations, 800, 30 and 0.1 by default
+     */
+    public NetworkGenerator durations(double speed, int groundMinutes, double spread) {
+        this.speed = speed;
+        this.groundMinutes = groundMinutes;
+        this.durationSpread = spread;
+        return this;
+    }
+
+    /**
+     * Sets the mean price per minute of flight and the spread (standard deviation
+     * of the logarithm) of the prices, 1 and 0.3 by default
+     */
+    public NetworkGenerator prices(double pricePerMinute, double spread) {
+        this.pricePerMinute = pricePerMinute;
+        this.priceSpread = spread;
+        return this;
+    }
+
+    /** Returns the codes of the airlines written, to be given to the FlightsParser */
+    public String[] getAirlineCodes() {
+        String[] codes = new String[airlines];
+        for (int i = 0; i < airlines; i++) {
+            codes[i] = code(i, 2);
+        }
+        return codes;
+    }
+
+    // returns the code of a number, with a number of letters or digits
+    private static String code(int number, int length) {
+        char[] code = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            code[i] = SYMBOLS.charAt(number % SYMBOLS.length());
+            number /= SYMBOLS.length();
+        }
+        return new String(code);
+    }
+
+    /**
+     * Writes the airlines, airports and flights files in a folder, created if
+     * needed, replacing the files already there
+     */
+    public void write(File folder) throws AirRoutesException {
+        if (airports < 2 || airports > SYMBOLS.length() * SYMBOLS.length() * SYMBOLS.length()) {
+            throw new AirRoutesException("Invalid number of airports: " + airports);
+        }
+        if (airlines < 1 || airlines > SYMBOLS.length() * SYMBOLS.length()) {
+            throw new AirRoutesException("Invalid number of airlines: " + airlines);
+        }
+        folder.mkdirs();
+        Random random = new Random(seed);
+        String[] airlineCodes = getAirlineCodes();
+        String[] airportCodes = new String[airports];
+        double[] latitude = new double[airports], longitude = new double[airports];
+        double[] popularity = new double[airports]; // cumulated weights of the airports by rank
+        double total = 0;
+        for (int i = 0; i < airports; i++) {
+            airportCodes[i] = code(i, 3);
+            latitude[i] = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)); // uniform over the sphere
+            longitude[i] = 360 * random.nextDouble() - 180;
+            total += 1 / Math.pow(i + 1, hubSkew);
+            popularity[i] = total;
+        }
+        try {
+            try (Writer out = writer(new File(folder, FlightsParser.AIRLINES))) {
+                for (String code : airlineCodes) {
+                    out.write(code + ",Airline " + code + ",Country\n");
+                }
+            }
+            try (Writer out = writer(new File(folder, FlightsParser.AIRPORTS))) {
+                for (int i = 0; i < airports; i++) {
+                    out.write(String.format(Locale.ROOT, "%s,City %s,%s International Airport,%.4f,%.4f\n",
+                            airportCodes[i], airportCodes[i], airportCodes[i], latitude[i], longitude[i]));
+                }
+            }
+            int[] flightNumbers = new int[airlines];
+            try (Writer out = writer(new File(folder, FlightsParser.FLIGHTS))) {
+                for (int f = 0; f < flightsPerDay; f++) {
+                    int from = draw(popularity, random), to;
+                    do {
+                        to = draw(popularity, random);
+                    } while (to == from);
+                    int airline = random.nextInt(airlines);
+                    double minutes = groundMinutes + 60 * distance(latitude[from], longitude[from], latitude[to], longitude[to]) / speed;
+                    int duration = (int) Math.min(24 * 60 - 1, Math.max(1, Math.round(minutes * Math.exp(durationSpread * random.nextGaussian()))));
+                    long price = Math.max(1, Math.round(pricePerMinute * duration * Math.exp(priceSpread * random.nextGaussian())));
+                    int departure = random.nextInt(24 * 60);
+                    int arrival = (departure + duration) % (24 * 60);
+                    out.write(String.format(Locale.ROOT, "%s%d,%s,%02d%02d,%s,%02d%02d,%d\n", airlineCodes[airline],
+                            ++flightNumbers[airline], airportCodes[from], departure / 60, departure % 60, airportCodes[to],
+                            arrival / 60, arrival % 60, price));
+                }
+            }
+        } catch (IOException e) {
+            throw new AirRoutesException("Could not write dataset " + folder + ": " + e.getMessage());
+        }
+    }
+
+    private static Writer writer(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    }
+
+    // returns an airport drawn with the probability of its weight
+    private static int draw(double[] popularity, Random random) {
+        int i = Arrays.binarySearch(popularity, random.nextDouble() * popularity[popularity.length - 1]);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    // great circle distance between two points in kilometres (haversine formula)
+    private static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1), dLon = Math.toRadians(lon2 - lon1);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+}
@@ -0,0 +1,285 @@
+package AirMaps;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A binary snapshot of the populated network, so a new process can answer the
+ * queries without parsing the dataset or building the graph again. The snapshot
+ * starts with a header holding a format version and a stamp of the dataset files
+ * and airline codes it was made from (see {@link FlightsParser#stamp(String[])});
+ * a snapshot made from other data is rejected.
+ *
+ * The snapshot holds the frozen routes as the searches use them: the airport
+ * table, the flight arrays of the compact network, the cheapest and parallel
+ * flights of every leg and the airport coordinates. Reading it copies these
+ * arrays out of the memory-mapped file in bulk.
+ */
+public final class NetworkSnapshot {
+	private static final int MAGIC = 0x41524D53; // "ARMS"
+	private static final int VERSION = 2;
+	private static final int DAY = 24 * 60;
+
+	private final long stamp;
+	private final FrozenRoutes routes;
+
+	public NetworkSnapshot(long stamp, FrozenRoutes routes) {
+		this.stamp = stamp;
+		this.routes = routes;
+	}
+
+	/** Returns the stamp of the dataset the snapshot was made from */
+	public long getStamp() {
+		return stamp;
+	}
+
+	/** Returns the routes of the snapshot, ready to be queried */
+	public FrozenRoutes getRoutes() {
+		return routes;
+	}
+
+	/**
+	 * Returns the snapshot of the dataset for a given list of airline codes, read
+	 * from a file if it was made from the current dataset, otherwise parsed from the
+	 * dataset and written to the file for the next time
+	 */
+	public static NetworkSnapshot load(File file, String[] includeAirlineCodes) throws FileNotFoundException, AirRoutesException {
+		long stamp = FlightsParser.stamp(includeAirlineCodes);
+		if (file.exists()) {
+			try {
+				return read(file, stamp);
+			} catch (AirRoutesException e) {
+				// the snapshot is stale or unreadable, parse the dataset again
+			}
+		}
+		FlightsParser fr = new FlightsParser(includeAirlineCodes);
+		AirRoutes parsed = new AirRoutes();
+		parsed.populate(fr.getAirlines(), fr.getAirports(), fr.getFlightTable());
+		NetworkSnapshot snapshot = new NetworkSnapshot(stamp, parsed.freeze());
+		snapshot.write(file);
+		return snapshot;
+	}
+
+	/**
+	 * Writes the snapshot to a file, through a temporary file moved in its place,
+	 * so that a reader never sees a snapshot half written
+	 */
+	public void write(File file) throws AirRoutesException {
+		FlightNetwork network = routes.network();
+		int n = network.airportCount(), m = network.flightCount();
+		Map<Flight, Integer> flightIndexes = new IdentityHashMap<>(m * 2);
+		for (int e = 0; e < m; e++) {
+			flightIndexes.put(network.flight(e), e);
+		}
+		List<int[]> legs = new ArrayList<>(); // departure airport, arrival airport, cheapest flight, then the flights by departure time
+		routes.flightIndex().forEachLeg((from, to, cheapest, byDeparture) -> {
+			int[] leg = new int[3 + byDeparture.size()];
+			leg[0] = network.indexOf(from);
+			leg[1] = network.indexOf(to);
+			leg[2] = flightIndexes.get(cheapest);
+			for (int i = 0; i < byDeparture.size(); i++) {
+				leg[3 + i] = flightIndexes.get(byDeparture.get(i));
+			}
+			legs.add(leg);
+		});
+
+		File target = file.getAbsoluteFile();
+		File temporary = null;
+		try {
+			temporary = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(stamp);
+				out.writeInt(n);
+				out.writeInt(m);
+				out.writeInt(legs.size());
+				for (int a = 0; a < n; a++) {
+					writeString(out, network.airport(a));
+				}
+				for (int a = 0; a <= n; a++) {
+					out.writeInt(a < n ? network.firstFlight(a) : m);
+				}
+				for (int e = 0; e < m; e++) {
+					out.writeInt(network.target(e));
+				}
+				for (int e = 0; e < m; e++) {
+					out.writeDouble(network.price(e));
+				}
+				for (int e = 0; e < m; e++) {
+					out.writeInt(network.departure(e));
+				}
+				for (int e = 0; e < m; e++) {
+					out.writeInt(network.arrival(e));
+				}
+				for (int a = 0; a <= n; a++) {
+					out.writeInt(a < n ? network.firstArriving(a) : m);
+				}
+				for (int i = 0; i < m; i++) {
+					out.writeInt(network.arrivingFlight(i));
+				}
+				for (int e = 0; e < m; e++) {
+					writeString(out, network.flight(e).getCode());
+				}
+				for (int[] leg : legs) {
+					out.writeInt(leg[0]);
+					out.writeInt(leg[1]);
+					out.writeInt(leg[2]);
+					out.writeInt(leg.length - 3);
+				}
+				for (int[] leg : legs) {
+					for (int i = 3; i < leg.length; i++) {
+						out.writeInt(leg[i]);
+					}
+				}
+				for (int a = 0; a < n; a++) {
+					out.writeDouble(routes.latitude(a));
+				}
+				for (int a = 0; a < n; a++) {
+					out.writeDouble(routes.longitude(a));
+				}
+			}
+			try {
+				Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			if (temporary != null) {
+				temporary.delete();
+			}
+			throw new AirRoutesException("Could not write snapshot " + file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads a snapshot from a memory-mapped file, rejecting it if it has another
+	 * format version or was made from another dataset (stamp)
+	 */
+	public static NetworkSnapshot read(File file, long stamp) throws AirRoutesException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (in.remaining() < 28 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+				throw new AirRoutesException("Not a snapshot of this version: " + file);
+			}
+			if (in.getLong() != stamp) {
+				throw new AirRoutesException("Snapshot is stale: " + file);
+			}
+			int n = count(in, file);
+			int m = count(in, file);
+			int legCount = count(in, file);
+
+			String[] airports = new String[n];
+			for (int a = 0; a < n; a++) {
+				airports[a] = readString(in);
+			}
+			int[] first = offsets(in, n, m, file);
+			int[] target = indexes(in, m, n, file);
+			double[] price = new double[m];
+			in.asDoubleBuffer().get(price);
+			in.position(in.position() + 8 * m);
+			for (double p : price) {
+				if (!(p >= 0)) { // negative or NaN
+					throw new AirRoutesException("Invalid snapshot " + file);
+				}
+			}
+			int[] departure = indexes(in, m, DAY, file);
+			int[] arrival = indexes(in, m, DAY, file);
+			int[] firstIn = offsets(in, n, m, file);
+			int[] inFlights = indexes(in, m, m, file);
+			int[] source = new int[m];
+			for (int a = 0; a < n; a++) {
+				Arrays.fill(source, first[a], first[a + 1], a);
+			}
+			Flight[] flights = new Flight[m];
+			for (int e = 0; e < m; e++) {
+				flights[e] = new Flight(readString(in), departure[e], arrival[e], airports[source[e]], airports[target[e]], price[e]);
+			}
+			FlightNetwork network = new FlightNetwork(airports, first, source, target, price, departure, arrival, flights, firstIn, inFlights);
+
+			int[] legs = indexes(in, 4 * legCount, Integer.MAX_VALUE, file); // departure and arrival airport, cheapest flight and number of flights of every leg
+			FlightIndex flightIndex = new FlightIndex();
+			for (int l = 0; l < legCount; l++) {
+				int from = legs[4 * l], to = legs[4 * l + 1], cheapest = legs[4 * l + 2];
+				if (from >= n || to >= n || cheapest >= m) {
+					throw new AirRoutesException("Invalid snapshot " + file);
+				}
+				int[] byDeparture = indexes(in, legs[4 * l + 3], m, file);
+				List<Flight> legFlights = new ArrayList<>(byDeparture.length);
+				for (int e : byDeparture) {
+					legFlights.add(flights[e]);
+				}
+				flightIndex.add(airports[from], airports[to], flights[cheapest], legFlights);
+			}
+
+			double[] latitude = new double[n], longitude = new double[n];
+			in.asDoubleBuffer().get(latitude);
+			in.position(in.position() + 8 * n);
+			in.asDoubleBuffer().get(longitude);
+			in.position(in.position() + 8 * n);
+			return new NetworkSnapshot(stamp, new FrozenRoutes(flightIndex, network, latitude, longitude));
+		} catch (IOException | BufferUnderflowException e) { // a truncated file underflows the buffer
+			throw new AirRoutesException("Could not read snapshot " + file + ": " + e);
+		}
+	}
+
+	// reads a number of items, throwing an exception if the rest of the file cannot hold that many
+	private static int count(ByteBuffer in, File file) throws AirRoutesException {
+		int count = in.getInt();
+		if (count < 0 || count > in.remaining()) {
+			throw new AirRoutesException("Invalid snapshot " + file);
+		}
+		return count;
+	}
+
+	// reads a number of indexes, throwing an exception if one is not below a bound
+	private static int[] indexes(ByteBuffer in, int count, int bound, File file) throws AirRoutesException {
+		if (count < 0 || count > in.remaining() / 4) {
+			throw new BufferUnderflowException();
+		}
+		int[] indexes = new int[count];
+		in.asIntBuffer().get(indexes);
+		in.position(in.position() + 4 * count);
+		for (int i : indexes) {
+			if (i < 0 || i >= bound) {
+				throw new AirRoutesException("Invalid snapshot " + file);
+			}
+		}
+		return indexes;
+	}
+
+	// reads the n + 1 offsets of the flights of every airport, throwing an exception if they do not go up from 0 to m
+	private static int[] offsets(ByteBuffer in, int n, int m, File file) throws AirRoutesException {
+		int[] offsets = indexes(in, n + 1, m + 1, file);
+		for (int a = 0; a < n; a++) {
+			if (offsets[a] > offsets[a + 1]) {
+				throw new AirRoutesException("Invalid snapshot " + file);
+			}
+		}
+		if (offsets[0] != 0 || offsets[n] != m) {
+			throw new AirRoutesException("Invalid snapshot " + file);
+		}
+		return offsets;
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer in) {
+		byte[] bytes = new byte[in.getShort() & 0xffff];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,176 @@
+package AirMaps;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of one query operation: how many queries ran and failed, a
+ * histogram of their times, and the work of their searches (airports settled,
+ * flights relaxed, routes enumerated), their allocations and their cache hits.
+ * Recording is lock-free, so any number of threads can record at the same time.
+ *
+ * The histogram has four buckets per power of two nanoseconds, so a percentile
+ * is given as the upper bound of its bucket, at most a quarter above the times
+ * in it.
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+    private static final int BUCKETS = 4 * 64;
+
+    private final String name;
+    private final LongAdder count = new LongAdder(), errors = new LongAdder(), nanos = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS); // number of queries by time bucket
+    private final LongAdder settled = new LongAdder(), relaxed = new LongAdder(), paths = new LongAdder();
+    private final LongAdder allocated = new LongAdder(), cacheHits = new LongAdder(), cacheMisses = new LongAdder();
+
+    /** Creates the metrics of an operation, named after the Routes method */
+    public OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    /** Returns the name of the operation */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records a query: its time in nanoseconds, whether it failed, and the
+     * airports settled, flights relaxed, routes enumerated and bytes allocated
+     */
+    public void record(long nanos, boolean failed, long settled, long relaxed, long paths, long allocated) {
+        count.increment();
+        if (failed) {
+            errors.increment();
+        }
+        this.nanos.add(nanos);
+        max.accumulate(nanos);
+        histogram.incrementAndGet(bucket(nanos));
+        this.settled.add(settled);
+        this.relaxed.add(relaxed);
+        this.paths.add(paths);
+        this.allocated.add(allocated);
+    }
+
+    /** Records a query answered from a cache */
+    public void cacheHit() {
+        cacheHits.increment();
+    }
+
+    /** Records a query not found in a cache */
+    public void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    // the bucket of a time: the times under 4 have their own, the others are split by power of two and by quarter
+    private static int bucket(long nanos) {
+        if (nanos < 4) {
+            return (int) Math.max(0, nanos);
+        }
+        int power = 63 - Long.numberOfLeadingZeros(nanos);
+        return 4 * (power - 1) + (int) (nanos >>> (power - 2) & 3);
+    }
+
+    // the highest time of a bucket
+    private static long upperBound(int bucket) {
+        if (bucket < 4) {
+            return bucket;
+        }
+        int power = bucket / 4 + 1;
+        return ((4L + bucket % 4 + 1) << (power - 2)) - 1;
+    }
+
+    /** Returns the time in nanoseconds under which a fraction of the queries ran, 0 if there were none */
+    public long percentileNanos(double fraction) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += histogram.get(i);
+        }
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram.get(i);
+            if (seen >= rank && seen > 0) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : nanos.sum() / 1e6 / n;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return max.get() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return percentileNanos(0.5) / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return percentileNanos(0.99) / 1e6;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return percentileNanos(0.999) / 1e6;
+    }
+
+    @Override
+    public long getSettled() {
+        return settled.sum();
+    }
+
+    @Override
+    public long getRelaxed() {
+        return relaxed.sum();
+    }
+
+    @Override
+    public long getPaths() {
+        return paths.sum();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocated.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder adder : new LongAdder[] { count, errors, nanos, settled, relaxed, paths, allocated, cacheHits, cacheMisses }) {
+            adder.reset();
+        }
+        max.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package AirMaps;
+
+/**
+ * The metrics of one query operation as seen through JMX, see
+ * {@link QueryMetrics#register(String)}. Times are in milliseconds, and the
+ * percentiles are accurate to within a quarter.
+ */
+public interface OperationMetricsMBean {
+
+	/** Returns the number of queries */
+	long getCount();
+
+	/** Returns the number of queries which threw an exception */
+	long getErrors();
+
+	/** Returns the mean time of the queries */
+	double getMeanMillis();
+
+	/** Returns the time of the slowest query */
+	double getMaxMillis();
+
+	/** Returns the median time of the queries */
+	double getP50Millis();
+
+	/** Returns the time under which 99% of the queries ran */
+	double getP99Millis();
+
+	/** Returns the time under which 99.9% of the queries ran */
+	double getP999Millis();
+
+	/** Returns the number of airports settled by the searches of the queries */
+	long getSettled();
+
+	/** Returns the number of flights looked at by the searches of the queries */
+	long getRelaxed();
+
+	/** Returns the number of routes enumerated by the queries */
+	long getPaths();
+
+	/** Returns the number of bytes allocated by the queries, 0 if the JVM does not measure it */
+	long getAllocatedBytes();
+
+	/** Returns the number of queries answered from a cache */
+	long getCacheHits();
+
+	/** Returns the number of queries not found in a cache */
+	long getCacheMisses();
+
+	/** Clears the metrics */
+	void reset();
+}
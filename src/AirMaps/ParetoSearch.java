@@ -0,0 +1,211 @@
+package AirMaps;
+
+import java.util.*;
+
+// multi-criteria label-setting search (Pareto Dijkstra) for the routes from one airport to another that no other
+// route beats on cost, number of hops and total travel time together. every airport keeps a bag of the labels
+// reaching it that no other one dominates, one per route: a new label is dropped when a label of the bag dominates
+// it, and removes the labels it dominates. the labels are settled in increasing (cost, hops, time), so a label is
+// never dominated by one settled after it, and the routes are found in increasing cost. a label is also dropped when a
+// route found beats every route continuing it, as bounded by the cheapest, fewest hops and shortest flights to
+// the arrival airport, which leaves the search only the labels that may still lead to a new trade-off.
+class ParetoSearch {
+    private static final int DAY = 24 * 60;
+
+    private final FlightNetwork network;
+
+    // a route from the departure airport to an airport, one per flight taken from the route of its parent
+    private static class Label implements Comparable<Label> {
+        private final int airport;
+        private final double cost;
+        private final int hops;
+        private final int time; // minutes from the first departure to the arrival at the airport, 0 at the departure airport
+        private final int arrival; // minute of the day of the arrival at the airport, -1 at the departure airport
+        private final int flight; // flight taken to the airport, -1 at the departure airport
+        private final Label parent;
+        private boolean dead; // dominated by a label of the same airport created after it, never settled
+
+        private Label(int airport, double cost, int hops, int time, int arrival, int flight, Label parent) {
+            this.airport = airport;
+            this.cost = cost;
+            this.hops = hops;
+            this.time = time;
+            this.arrival = arrival;
+            this.flight = flight;
+            this.parent = parent;
+        }
+
+        // returns true if no route continuing this one can beat the same route continuing another label of the
+        // same airport. a route arriving earlier in the day can wait for the flights the other one takes, so
+        // its time counts the wait until the other arrival.
+        private boolean dominates(Label l) {
+            if (cost > l.cost || hops > l.hops) {
+                return false;
+            }
+            int wait = arrival < 0 || l.arrival < 0 ? 0 : l.arrival - arrival;
+            return time + (wait < 0 ? wait + DAY : wait) <= l.time;
+        }
+
+        @Override
+        public int compareTo(Label l) {
+            if (cost != l.cost) {
+                return cost < l.cost ? -1 : 1;
+            }
+            return hops != l.hops ? Integer.compare(hops, l.hops) : Integer.compare(time, l.time);
+        }
+    }
+
+    ParetoSearch(FlightNetwork network) {
+        this.network = network;
+    }
+
+    // adds the Pareto-optimal routes from one airport to another to routes, in increasing cost, never going
+    // through the excluded airports (excluded may be null). the search stops once it created maxLabels labels or
+    // found maxRoutes routes, and returns why, or null if it found every route.
+    QueryResult.Reason search(int from, int to, boolean[] excluded, int maxLabels, int maxRoutes, List<Route> routes) {
+        @SuppressWarnings("unchecked")
+        List<Label>[] bags = (List<Label>[]) new List<?>[network.airportCount()]; // labels not dominated of every airport, settled at the arrival one
+        double[][] bounds = { lowerBounds(to, excluded, 0), lowerBounds(to, excluded, 1), lowerBounds(to, excluded, 2) };
+        PriorityQueue<Label> queue = new PriorityQueue<>();
+        queue.add(new Label(from, 0, 0, 0, -1, -1, null));
+        int labels = 1;
+        long settled = 0, relaxed = 0;
+        QueryResult.Reason reason = null;
+        while (!queue.isEmpty()) {
+            Label l = queue.poll();
+            if (l.dead || beaten(bags[to], bounds, l)) { // by a route found since it was created
+                continue;
+            }
+            if ((++settled & 63) == 0) {
+                QueryOptions.checkpoint();
+            }
+            if (l.airport == to) {
+                bag(bags, to).add(l);
+                routes.add(route(l));
+                if (routes.size() == maxRoutes) {
+                    while (!queue.isEmpty() && (queue.peek().dead || beaten(bags[to], bounds, queue.peek()))) { // none of them leads to a route
+                        queue.poll();
+                    }
+                    if (!queue.isEmpty()) { // a label left may still lead to another route
+                        reason = QueryResult.Reason.MAX_RESULTS;
+                        break;
+                    }
+                }
+                continue; // the routes going on from the arrival airport come back to it with more hops
+            }
+            relaxed += network.endFlight(l.airport) - network.firstFlight(l.airport);
+            for (int e = network.firstFlight(l.airport), end = network.endFlight(l.airport); e < end; e++) {
+                int b = network.target(e);
+                if (b == from || (excluded != null && excluded[b])) { // coming back to the departure airport never pays
+                    continue;
+                }
+                int wait = l.arrival < 0 ? 0 : Flight.minutesBetween(l.arrival, network.departure(e));
+                Label next = new Label(b, l.cost + network.price(e), l.hops + 1,
+                        l.time + wait + Flight.minutesBetween(network.departure(e), network.arrival(e)), network.arrival(e), e, l);
+                if (dominated(bags, bounds, to, next)) {
+                    continue;
+                }
+                if (labels == maxLabels) {
+                    reason = QueryResult.Reason.MAX_LABELS;
+                    break;
+                }
+                labels++;
+                if (b != to) {
+                    List<Label> bag = bag(bags, b);
+                    for (int i = bag.size() - 1; i >= 0; i--) {
+                        if (next.dominates(bag.get(i))) {
+                            bag.get(i).dead = true;
+                            bag.set(i, bag.get(bag.size() - 1));
+                            bag.remove(bag.size() - 1);
+                        }
+                    }
+                    bag.add(next);
+                }
+                queue.add(next);
+            }
+            if (reason != null) {
+                break;
+            }
+        }
+        SearchEffort.searched(settled, relaxed);
+        return reason;
+    }
+
+    // returns true if a label of the bag of the airport of a label, or a route found to the arrival airport, is as
+    // good as it, or as any route continuing it, on every criterion
+    private boolean dominated(List<Label>[] bags, double[][] bounds, int to, Label l) {
+        if (beaten(bags[to], bounds, l)) {
+            return true;
+        }
+        if (l.airport != to && bags[l.airport] != null) {
+            for (Label other : bags[l.airport]) {
+                if (other.dominates(l)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // returns true if a route found (found may be null) is as good as any route continuing a label, bounded by
+    // the cheapest, fewest hops and shortest flights from its airport to the arrival airport
+    private static boolean beaten(List<Label> found, double[][] bounds, Label l) {
+        int a = l.airport;
+        if (bounds[0][a] == Double.POSITIVE_INFINITY) { // the arrival airport cannot be reached from it
+            return true;
+        }
+        if (found != null) {
+            for (Label f : found) {
+                if (f.cost <= l.cost + bounds[0][a] && f.hops <= l.hops + bounds[1][a] && f.time <= l.time + bounds[2][a]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // returns the bag of an airport, created empty on its first label
+    private static List<Label> bag(List<Label>[] bags, int airport) {
+        if (bags[airport] == null) {
+            bags[airport] = new ArrayList<>();
+        }
+        return bags[airport];
+    }
+
+    // returns the lowest sum of the prices (criterion 0), of one per flight (1) or of the durations (2) of the
+    // flights from every airport to the arrival airport, never going through the excluded airports, infinite if
+    // the arrival airport cannot be reached
+    private double[] lowerBounds(int to, boolean[] excluded, int criterion) {
+        double[] bound = new double[network.airportCount()];
+        Arrays.fill(bound, Double.POSITIVE_INFINITY);
+        bound[to] = 0;
+        AirportHeap heap = new AirportHeap(bound.length);
+        heap.push(to, 0);
+        while (!heap.isEmpty()) {
+            int b = heap.pop();
+            for (int i = network.firstArriving(b), end = network.endArriving(b); i < end; i++) {
+                int e = network.arrivingFlight(i);
+                int a = network.source(e);
+                if (excluded != null && excluded[a]) {
+                    continue;
+                }
+                double weight = criterion == 0 ? network.price(e) : criterion == 1 ? 1 : Flight.minutesBetween(network.departure(e), network.arrival(e));
+                if (bound[b] + weight < bound[a]) {
+                    bound[a] = bound[b] + weight;
+                    heap.push(a, bound[a]);
+                }
+            }
+        }
+        return bound;
+    }
+
+    // follows the flights of a label back to the departure airport, and returns its route
+    private FlightRoute route(Label l) {
+        LinkedList<Flight> legs = new LinkedList<>();
+        Label first = l;
+        for (; first.parent != null; first = first.parent) {
+            legs.addFirst(network.flight(first.flight));
+        }
+        return new FlightRoute(network.airport(first.airport), legs);
+    }
+}
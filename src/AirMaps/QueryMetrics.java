@@ -0,0 +1,88 @@
+package AirMaps;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A {@link MetricsRegistry} keeping the metrics of every operation in memory.
+ * Once registered, every operation is also an MBean of the platform MBean server,
+ * named {@code <domain>:type=Routes,operation=<name>}, so that slow query classes
+ * can be watched with any JMX client.
+ */
+public class QueryMetrics implements MetricsRegistry {
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private volatile String domain; // JMX domain of the operations, null until registered
+
+    @Override
+    public OperationMetrics operation(String name) {
+        OperationMetrics metrics = operations.get(name);
+        if (metrics == null) {
+            OperationMetrics created = new OperationMetrics(name);
+            metrics = operations.putIfAbsent(name, created);
+            if (metrics == null) {
+                metrics = created;
+                if (domain != null) {
+                    try {
+                        register(created);
+                    } catch (JMException e) {
+                        // the operation is still recorded, only not shown through JMX
+                    }
+                }
+            }
+        }
+        return metrics;
+    }
+
+    @Override
+    public Map<String, OperationMetrics> getOperations() {
+        return Collections.unmodifiableMap(operations);
+    }
+
+    /**
+     * Registers the operations, and the ones created later, with the platform
+     * MBean server in a JMX domain
+     */
+    public synchronized void register(String domain) throws AirRoutesException {
+        this.domain = domain;
+        try {
+            for (OperationMetrics metrics : operations.values()) {
+                register(metrics);
+            }
+        } catch (JMException e) {
+            throw new AirRoutesException("Could not register the query metrics: " + e.getMessage());
+        }
+    }
+
+    /** Removes the operations from the platform MBean server */
+    public synchronized void unregister() throws AirRoutesException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (OperationMetrics metrics : operations.values()) {
+                ObjectName name = name(metrics);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            }
+        } catch (JMException e) {
+            throw new AirRoutesException("Could not unregister the query metrics: " + e.getMessage());
+        }
+        domain = null;
+    }
+
+    private void register(OperationMetrics metrics) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = name(metrics);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(metrics, name);
+        }
+    }
+
+    private ObjectName name(OperationMetrics metrics) throws JMException {
+        return new ObjectName(domain + ":type=Routes,operation=" + metrics.getName());
+    }
+}
@@ -0,0 +1,159 @@
+package AirMaps;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits of the queries taking them: a deadline, either absolute or counted from
+ * the start of every query, a maximum number of routes in a list of routes, and
+ * a cancellation flag which another thread can raise with {@link #cancel()}. The
+ * searches check the deadline and the flag as they go, and a query stopped
+ * returns what it found so far in a {@link QueryResult} flagged as incomplete.
+ * The same options can be given to any number of queries, on any threads: once
+ * cancelled, every query running or started with them stops.
+ */
+public class QueryOptions {
+    private static final ThreadLocal<Run> current = new ThreadLocal<>();
+    private static final AtomicInteger running = new AtomicInteger(); // number of threads running a limited query
+
+    private long timeoutNanos = -1; // from the start of every query, -1 if none
+    private long deadlineMillis = Long.MAX_VALUE; // absolute, in milliseconds since the epoch
+    private int maxResults = Integer.MAX_VALUE;
+    private volatile boolean cancelled;
+
+    // a query stopped by its options
+    static final class Stopped extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final QueryResult.Reason reason;
+
+        private Stopped(QueryResult.Reason reason) {
+            super(reason.toString(), null, false, false); // thrown to unwind the searches, no stack trace needed
+            this.reason = reason;
+        }
+    }
+
+    // the options of the query running on a thread, with the deadline of that query
+    private static final class Run {
+        private final QueryOptions options;
+        private final long deadline; // System.nanoTime() of the deadline, Long.MAX_VALUE if none
+        private final Run outer; // the run of an enclosing query on the same thread, null if none
+
+        private Run(QueryOptions options, long deadline, Run outer) {
+            this.options = options;
+            this.outer = outer;
+            if (outer == null || outer.deadline == Long.MAX_VALUE) {
+                this.deadline = deadline;
+            } else { // never later than the enclosing query
+                this.deadline = deadline == Long.MAX_VALUE || outer.deadline - deadline < 0 ? outer.deadline : deadline;
+            }
+        }
+
+        private void check() {
+            for (Run run = this; run != null; run = run.outer) {
+                if (run.options.cancelled) {
+                    throw new Stopped(QueryResult.Reason.CANCELLED);
+                }
+            }
+            if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+                throw new Stopped(QueryResult.Reason.DEADLINE);
+            }
+        }
+    }
+
+    /** Sets the time every query may run, in milliseconds from its start */
+    public QueryOptions timeout(long millis) {
+        try {
+            this.timeoutNanos = Math.multiplyExact(millis, 1_000_000L);
+        } catch (ArithmeticException e) { // longer than any query runs
+            this.timeoutNanos = Long.MAX_VALUE;
+        }
+        return this;
+    }
+
+    /** Sets the time by which every query must end, in milliseconds since the epoch */
+    public QueryOptions deadline(long epochMillis) {
+        this.deadlineMillis = epochMillis;
+        return this;
+    }
+
+    /** Sets the maximum number of routes of a list of routes */
+    public QueryOptions maxResults(int maxResults) {
+        this.maxResults = maxResults;
+        return this;
+    }
+
+    /** Returns the maximum number of routes of a list of routes */
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /** Stops the queries running with these options, and the ones started later */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Returns true if the queries with these options were cancelled */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // the System.nanoTime() by which a query starting now must end, Long.MAX_VALUE if none. the nanoseconds left
+    // saturate instead of overflowing, a deadline too far to be counted in nanoseconds being none.
+    long deadlineNanos() {
+        long now = System.nanoTime();
+        long left = timeoutNanos < 0 ? Long.MAX_VALUE : timeoutNanos; // nanoseconds left, Long.MAX_VALUE if no limit
+        if (deadlineMillis != Long.MAX_VALUE) {
+            long millis = System.currentTimeMillis();
+            try {
+                left = Math.min(left, Math.multiplyExact(Math.subtractExact(deadlineMillis, millis), 1_000_000L));
+            } catch (ArithmeticException e) {
+                left = deadlineMillis < millis ? -1 : left;
+            }
+        }
+        if (left == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Math.addExact(now, Math.max(left, -1)); // a deadline already past is over at once
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // starts a query with these options on this thread, ending at its own deadline
+    void start() {
+        start(deadlineNanos());
+    }
+
+    // starts a query with these options on this thread, or a part of it on another thread, ending at a deadline.
+    // throws Stopped at once if the query is already cancelled or late, end() being called anyway.
+    void start(long deadline) {
+        Run run = new Run(this, deadline, current.get());
+        if (run.outer == null) {
+            running.incrementAndGet();
+        }
+        current.set(run);
+        run.check();
+    }
+
+    // ends the query started last on this thread
+    static void end() {
+        Run run = current.get();
+        if (run.outer == null) {
+            current.remove();
+            running.decrementAndGet();
+        } else {
+            current.set(run.outer);
+        }
+    }
+
+    // called by the searches as they go: throws Stopped if the query running on this thread must stop.
+    // only costs a volatile read while no thread runs a limited query.
+    static void checkpoint() {
+        if (running.get() != 0) {
+            Run run = current.get();
+            if (run != null) {
+                run.check();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package AirMaps;
+
+/**
+ * The answer of a query run with {@link QueryOptions}: the value found, and
+ * whether the query ran to its end. A query stopped by its deadline or
+ * cancelled returns the routes it found so far, or no value if it had none to
+ * give, and a list of routes cut at the maximum number of results is
+ * incomplete too.
+ */
+public class QueryResult<T> {
+
+    /** Why a query did not run to its end */
+    public enum Reason {
+        /** The deadline of the query passed */
+        DEADLINE,
+        /** The query was cancelled */
+        CANCELLED,
+        /** The list of routes reached the maximum number of results */
+        MAX_RESULTS,
+        /** The search reached its maximum number of labels, see {@link FrozenRoutes#paretoRoutes} */
+        MAX_LABELS
+    }
+
+    private final T value;
+    private final Reason reason; // null if complete
+
+    QueryResult(T value, Reason reason) {
+        this.value = value;
+        this.reason = reason;
+    }
+
+    /** Returns the value found, which may be null if the query is incomplete */
+    public T getValue() {
+        return value;
+    }
+
+    /** Returns true if the query ran to its end */
+    public boolean isComplete() {
+        return reason == null;
+    }
+
+    /** Returns why the query did not run to its end, or null if it did */
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,148 @@
+package AirMaps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedList;
+import java.util.stream.IntStream;
+
+/**
+ * The cheapest cost and the least number of hops between every pair of airports,
+ * with the flight taken to reach every airport from every other one, so that a
+ * cheapest or least hops route is read back in O(path length) without searching.
+ * The routes are the ones {@link FrozenRoutes#leastCost(String, String)} and
+ * {@link FrozenRoutes#leastHop(String, String)} find.
+ *
+ * The tables are computed in parallel, one search per departure airport, and
+ * kept off-heap: in a direct buffer, or in a memory-mapped file reused by the
+ * next processes as long as it was made from the same airline codes, dataset and
+ * network.
+ */
+public final class RouteMatrix {
+	private static final int MAGIC = 0x41524D58; // "ARMX"
+	private static final int VERSION = 1;
+	private static final int HEADER = 32;
+
+	private final FlightNetwork network;
+	private final int n; // number of airports
+	private final ByteBuffer tables;
+	private final int hopsAt, costViaAt, hopViaAt; // offsets of the tables after the costs
+
+	private RouteMatrix(FlightNetwork network, ByteBuffer tables) {
+		this.network = network;
+		this.n = network.airportCount();
+		this.tables = tables;
+		long cells = (long) n * n;
+		this.hopsAt = (int) (HEADER + 8 * cells);
+		this.costViaAt = (int) (hopsAt + 2 * cells);
+		this.hopViaAt = (int) (costViaAt + 4 * cells);
+	}
+
+	private static long size(int n) {
+		return HEADER + 18L * n * n; // a double cost, a short hops and two int flights per pair
+	}
+
+	/** Computes the tables of a network in a direct buffer */
+	public static RouteMatrix compute(FrozenRoutes routes) throws AirRoutesException {
+		FlightNetwork network = routes.network();
+		long size = size(network.airportCount());
+		if (size > Integer.MAX_VALUE) {
+			throw new AirRoutesException("Too many airports for a route matrix: " + network.airportCount());
+		}
+		RouteMatrix matrix = new RouteMatrix(network, ByteBuffer.allocateDirect((int) size));
+		matrix.fill(routes, 0);
+		return matrix;
+	}
+
+	/**
+	 * Returns the tables of a network, read from a file if it was made from the
+	 * same data (checksum, see {@link FlightsParser#checksum(String[])}) and network,
+	 * otherwise computed into the file for the next time
+	 */
+	public static RouteMatrix load(File file, long checksum, FrozenRoutes routes) throws AirRoutesException {
+		FlightNetwork network = routes.network();
+		long fingerprint = network.fingerprint();
+		long size = size(network.airportCount());
+		if (size > Integer.MAX_VALUE) {
+			throw new AirRoutesException("Too many airports for a route matrix: " + network.airportCount());
+		}
+		if (file.length() == size) {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				if (in.getInt(0) == MAGIC && in.getInt(4) == VERSION && in.getLong(8) == checksum && in.getLong(16) == fingerprint) {
+					return new RouteMatrix(network, in);
+				}
+			} catch (IOException e) {
+				// the file is unreadable, compute it again
+			}
+		}
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			RouteMatrix matrix = new RouteMatrix(network, out);
+			matrix.fill(routes, checksum);
+			out.putInt(0, MAGIC); // written last, so that a file left half written is never read
+			out.force();
+			return matrix;
+		} catch (IOException e) {
+			throw new AirRoutesException("Could not write route matrix " + file + ": " + e.getMessage());
+		}
+	}
+
+	// writes the header (but the magic number) and the rows of every departure airport, searched in parallel
+	private void fill(FrozenRoutes routes, long checksum) {
+		tables.putInt(4, VERSION);
+		tables.putLong(8, checksum);
+		tables.putLong(16, network.fingerprint());
+		tables.putInt(24, n);
+		tables.putInt(28, network.flightCount());
+		IntStream.range(0, n).parallel().forEach(a -> { // every row is written at its own offsets
+			CostSearch.Tree costs = routes.costSearch().getTree(a);
+			HopSearch.Tree hops = routes.hopSearch().getTree(a);
+			for (int b = 0; b < n; b++) {
+				int cell = a * n + b;
+				tables.putDouble(HEADER + 8 * cell, costs.cost(b));
+				tables.putShort(hopsAt + 2 * cell, (short) hops.hops(b));
+				tables.putInt(costViaAt + 4 * cell, costs.via(b));
+				tables.putInt(hopViaAt + 4 * cell, hops.via(b));
+			}
+		});
+	}
+
+	/** Returns the index of an airport code in the tables, or -1 if the airport does not exist */
+	public int indexOf(String airport) {
+		return network.indexOf(airport);
+	}
+
+	/** Returns the cheapest cost from one airport index to another, infinity if unreachable */
+	public double cost(int from, int to) {
+		return tables.getDouble(HEADER + 8 * (from * n + to));
+	}
+
+	/** Returns the least number of hops from one airport index to another, -1 if unreachable */
+	public int hops(int from, int to) {
+		return tables.getShort(hopsAt + 2 * (from * n + to));
+	}
+
+	/** Returns a cheapest route from one airport index to another, or null if unreachable */
+	public Route leastCost(int from, int to) {
+		return cost(from, to) == Double.POSITIVE_INFINITY ? null : route(costViaAt, from, to);
+	}
+
+	/** Returns a least hops route from one airport index to another, or null if unreachable */
+	public Route leastHop(int from, int to) {
+		return hops(from, to) < 0 ? null : route(hopViaAt, from, to);
+	}
+
+	// follows the flights taken to reach every airport back from the arrival airport, in the row of the departure airport
+	private FlightRoute route(int viaAt, int from, int to) {
+		LinkedList<Flight> legs = new LinkedList<>();
+		for (int e = tables.getInt(viaAt + 4 * (from * n + to)); e >= 0; e = tables.getInt(viaAt + 4 * (from * n + network.source(e)))) {
+			legs.addFirst(network.flight(e));
+		}
+		return new FlightRoute(network.airport(from), legs);
+	}
+}
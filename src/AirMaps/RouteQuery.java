@@ -0,0 +1,29 @@
+package AirMaps;
+
+/**
+ * A query of a batch: a route from one airport (airport code) to another.
+ */
+public class RouteQuery {
+    private final String from;
+    private final String to;
+
+    public RouteQuery(String from, String to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /** Returns the airport code of the departure airport */
+    public String getFrom() {
+        return this.from;
+    }
+
+    /** Returns the airport code of the arrival airport */
+    public String getTo() {
+        return this.to;
+    }
+
+    @Override
+    public String toString() {
+        return from + "-" + to;
+    }
+}
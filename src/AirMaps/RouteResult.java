@@ -0,0 +1,37 @@
+package AirMaps;
+
+/**
+ * The answer to a query of a batch: the route found, or the error that the same
+ * query would have thrown on its own.
+ */
+public class RouteResult {
+    private final RouteQuery query;
+    private final Route route;
+    private final AirRoutesException error;
+
+    public RouteResult(RouteQuery query, Route route, AirRoutesException error) {
+        this.query = query;
+        this.route = route;
+        this.error = error;
+    }
+
+    /** Returns the query answered */
+    public RouteQuery getQuery() {
+        return this.query;
+    }
+
+    /** Returns the route found, or null if the query failed or no route exists */
+    public Route getRoute() {
+        return this.route;
+    }
+
+    /** Returns the error of the query, or null if it succeeded */
+    public AirRoutesException getError() {
+        return this.error;
+    }
+
+    /** Returns true if the query succeeded */
+    public boolean isSuccess() {
+        return this.error == null;
+    }
+}
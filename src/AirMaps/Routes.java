@@ -2,6 +2,7 @@ package AirMaps;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface Routes {
 
@@ -11,6 +12,13 @@ public interface Routes {
 	 */
 	boolean populate(HashSet<String[]> airlines, HashSet<String[]> airports, HashSet<String[]> routes);
 
+	/**
+	 * Applies changes to the flights of the graph: flights added, removed or
+	 * repriced by flight code. The changes are applied all together or not at all,
+	 * and applying them again changes nothing. Returns true if the flights changed.
+	 */
+	boolean update(FlightUpdates updates) throws AirRoutesException;
+
 	/**
 	 * Returns a cheapest flight route from one airport (airport code) to another
 	 */
@@ -34,6 +42,20 @@ public interface Routes {
 	 */
 	Route leastHop(String from, String to, List<String> excluding) throws AirRoutesException;
 
+	/**
+	 * Returns a cheapest flight route for every query of a batch, in the order of
+	 * the queries. The queries are grouped by departure airport so that one search
+	 * answers every query of a group, and the groups are searched in parallel. A
+	 * query failing does not stop the others: its result holds the error instead.
+	 */
+	List<RouteResult> leastCostBatch(List<RouteQuery> queries);
+
+	/**
+	 * Returns a least connections flight route for every query of a batch, in the
+	 * order of the queries, searched like {@link #leastCostBatch(List)}
+	 */
+	List<RouteResult> leastHopBatch(List<RouteQuery> queries);
+
 	/**
 	 * Returns the airport code of a best airport for the meet up of two people
 	 * located in two different airports (airport codes) accordingly to the routes
@@ -62,6 +84,13 @@ public interface Routes {
 	 */
 	List<Route> allRoutesCost(String from, String to, List<String> excluding, int maxCost) throws AirRoutesException;
 
+	/**
+	 * Returns the flight routes lazily, in increasing price cost, from one airport
+	 * (airport code) to another, excluding a list of airport (airport codes). Each
+	 * route is only searched for when the stream asks for it.
+	 */
+	Stream<Route> routesCost(String from, String to, List<String> excluding) throws AirRoutesException;
+
 	/**
 	 * Returns the flights routes, in increasing number of hops, below or equal to a
 	 * given number of hops, from one airport (airport code) to another, excluding a
@@ -69,4 +98,81 @@ public interface Routes {
 	 */
 	List<Route> allRoutesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException;
 
+	/**
+	 * Returns the flights routes lazily, in increasing number of hops, below or
+	 * equal to a given number of hops, from one airport (airport code) to another,
+	 * excluding a list of airport (airport codes). Each route is only searched for
+	 * when the stream asks for it, so the number of routes can be limited with
+	 * {@link Stream#limit(long)}.
+	 */
+	Stream<Route> routesHop(String from, String to, List<String> excluding, int maxHop) throws AirRoutesException;
+
+	/**
+	 * Returns a cheapest flight route from one airport (airport code) to another,
+	 * excluding a list of airport (airport codes), within the limits of some
+	 * options. The route is null if the query stopped before finding it.
+	 */
+	QueryResult<Route> leastCost(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException;
+
+	/**
+	 * Returns a least connections flight route from one airport (airport code) to
+	 * another, excluding a list of airport (airport codes), within the limits of
+	 * some options. The route is null if there is none or if the query stopped
+	 * before finding it.
+	 */
+	QueryResult<Route> leastHop(String from, String to, List<String> excluding, QueryOptions options) throws AirRoutesException;
+
+	/**
+	 * Returns a cheapest flight route for every query of a batch, like
+	 * {@link #leastCostBatch(List)}, within the limits of some options. The
+	 * queries not answered when the batch stops hold an error.
+	 */
+	QueryResult<List<RouteResult>> leastCostBatch(List<RouteQuery> queries, QueryOptions options);
+
+	/**
+	 * Returns a least connections flight route for every query of a batch, like
+	 * {@link #leastHopBatch(List)}, within the limits of some options. The queries
+	 * not answered when the batch stops hold an error.
+	 */
+	QueryResult<List<RouteResult>> leastHopBatch(List<RouteQuery> queries, QueryOptions options);
+
+	/**
+	 * Returns the airport code of a best airport for the meet up of two people
+	 * accordingly to the routes costs, within the limits of some options. The
+	 * airport is null if the query stopped before finding it.
+	 */
+	QueryResult<String> leastCostMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException;
+
+	/**
+	 * Returns the airport code of a best airport for the meet up of two people
+	 * accordingly to the number of connections, within the limits of some options.
+	 * The airport is null if the query stopped before finding it.
+	 */
+	QueryResult<String> leastHopMeetUp(String at1, String at2, QueryOptions options) throws AirRoutesException;
+
+	/**
+	 * Returns the airport code of a best airport for the earliest meet up of two
+	 * people departing at a given time, within the limits of some options. The
+	 * airport is null if the query stopped before finding it.
+	 */
+	QueryResult<String> leastTimeMeetUp(String at1, String at2, String startTime, QueryOptions options) throws AirRoutesException;
+
+	/**
+	 * Returns the flight routes, in increasing price cost, below or equal to a
+	 * given price, from one airport (airport code) to another, excluding a list of
+	 * airport (airport codes), at most the maximum number of results of some
+	 * options and within their deadline. If the query stops, the routes found so
+	 * far are returned.
+	 */
+	QueryResult<List<Route>> allRoutesCost(String from, String to, List<String> excluding, int maxCost, QueryOptions options) throws AirRoutesException;
+
+	/**
+	 * Returns the flights routes, in increasing number of hops, below or equal to a
+	 * given number of hops, from one airport (airport code) to another, excluding a
+	 * list of airport (airport codes), at most the maximum number of results of
+	 * some options and within their deadline. If the query stops, the routes found
+	 * so far are returned.
+	 */
+	QueryResult<List<Route>> allRoutesHop(String from, String to, List<String> excluding, int maxHop, QueryOptions options) throws AirRoutesException;
+
 }
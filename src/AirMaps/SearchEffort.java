@@ -0,0 +1,62 @@
+package AirMaps;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// the work of the searches run by a thread while it is measured: airports settled, flights relaxed and routes
+// enumerated. every search reports its work when it ends, which only costs a volatile read while no thread is
+// measured, so the searches need not know whether anyone is measuring them.
+final class SearchEffort {
+    private static final ThreadLocal<SearchEffort> current = new ThreadLocal<>();
+    private static final AtomicInteger measured = new AtomicInteger(); // number of threads being measured
+
+    private final SearchEffort outer; // the measure of an enclosing query on the same thread, null if none
+    long settled, relaxed, paths;
+
+    private SearchEffort(SearchEffort outer) {
+        this.outer = outer;
+    }
+
+    // starts measuring the searches of this thread, until stop() is called on the returned measure
+    static SearchEffort start() {
+        SearchEffort effort = new SearchEffort(current.get());
+        if (effort.outer == null) {
+            measured.incrementAndGet();
+        }
+        current.set(effort);
+        return effort;
+    }
+
+    // stops measuring, the work measured being also added to the enclosing measure, if any
+    void stop() {
+        if (outer == null) {
+            current.remove();
+            measured.decrementAndGet();
+        } else {
+            outer.settled += settled;
+            outer.relaxed += relaxed;
+            outer.paths += paths;
+            current.set(outer);
+        }
+    }
+
+    // adds the airports settled and the flights relaxed by a search to the measure of this thread, if any
+    static void searched(long settled, long relaxed) {
+        if (measured.get() != 0) {
+            SearchEffort effort = current.get();
+            if (effort != null) {
+                effort.settled += settled;
+                effort.relaxed += relaxed;
+            }
+        }
+    }
+
+    // adds a route enumerated to the measure of this thread, if any
+    static void enumerated() {
+        if (measured.get() != 0) {
+            SearchEffort effort = current.get();
+            if (effort != null) {
+                effort.paths++;
+            }
+        }
+    }
+}
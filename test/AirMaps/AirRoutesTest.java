@@ -1,11 +1,12 @@
 package AirMaps;
 
 import java.util.*;
+import java.util.stream.Collectors;
 import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.io.FileNotFoundException;
+import java.io.*;
 
 public class AirRoutesTest {
 
@@ -38,6 +39,142 @@ public class AirRoutesTest {
         }
     }
 
+    @Test
+    public void populateFlightTableTest() {
+        try {
+            AirRoutes fromTable = new AirRoutes();
+            fromTable.populate(fr.getAirlines(), fr.getAirports(), fr.getFlightTable()); // flights already parsed by the FlightsParser
+            assertEquals(fr.getFlights().size(), fr.getFlightTable().size());
+            assertEquals(364, fromTable.leastCost("EDI", "DXB").totalCost());
+            assertEquals(sr.leastCost("EDI", "DXB"), fromTable.leastCost("EDI", "DXB"));
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void invalidFlightsTest() {
+        HashSet<String[]> airports = new HashSet<>();
+        airports.add(new String[] { "LHR", "London", "Heathrow" });
+        airports.add(new String[] { "EDI", "Edinburgh", "Edinburgh Airport" });
+        for (String[] flight : new String[][] { { "BA0001", "LHR", "2575", "EDI", "0900", "50" }, { "BA0001", "LHR", "0860", "EDI", "0900", "50" },
+                { "BA0001", "LHR", "0800", "EDI", "0900", "-50" }, { "BA0001", "LHR", "0800", "EDI", "0900", "NaN" } }) {
+            HashSet<String[]> flights = new HashSet<>();
+            flights.add(new String[] { "BA0002", "EDI", "1000", "LHR", "1100", "50" });
+            flights.add(flight);
+            AirRoutes invalid = new AirRoutes();
+            assertFalse(invalid.populate(new HashSet<>(), airports, flights));
+            assertTrue(invalid.getFlights("EDI", "LHR").isEmpty()); // none of the flights is added
+        }
+
+        for (String flight : new String[] { "BA0001,LHR,2575,EDI,0900,50", "BA0001,LHR,0860,EDI,0900,50", "BA0001,LHR,0800,EDI,0900,-50" }) {
+            try {
+                File folder = java.nio.file.Files.createTempDirectory("airmaps").toFile();
+                java.nio.file.Files.write(new File(folder, "airlines_data.csv").toPath(), "BA,British Airways,United Kingdom\n".getBytes());
+                java.nio.file.Files.write(new File(folder, "airports_data.csv").toPath(), "LHR,London,Heathrow\nEDI,Edinburgh,Edinburgh Airport\n".getBytes());
+                java.nio.file.Files.write(new File(folder, "flights_data.csv").toPath(), (flight + "\n").getBytes());
+                for (File file : folder.listFiles()) {
+                    file.deleteOnExit();
+                }
+                folder.deleteOnExit();
+                new FlightsParser(folder, new String[] { "BA" });
+                fail();
+            } catch (AirRoutesException e) {
+                // the time or price is rejected
+            } catch (IOException e) {
+                fail();
+            }
+        }
+    }
+
+    @Test
+    public void snapshotTest() {
+        try {
+            File file = File.createTempFile("airmaps", ".snapshot");
+            file.deleteOnExit();
+            NetworkSnapshot written = new NetworkSnapshot(FlightsParser.stamp(FlightsParser.AIRLINECODES), sr.freeze());
+            written.write(file);
+
+            AirRoutes fromSnapshot = new AirRoutes();
+            fromSnapshot.populate(NetworkSnapshot.load(file, FlightsParser.AIRLINECODES));
+            assertEquals(sr.freeze().network().airports(), fromSnapshot.freeze().network().airports());
+            assertEquals(sr.freeze().network().fingerprint(), fromSnapshot.freeze().network().fingerprint()); // the same flights in the same order
+            assertEquals(sr.leastCost("EDI", "DXB"), fromSnapshot.leastCost("EDI", "DXB"));
+            assertEquals(364, fromSnapshot.leastCost("EDI", "DXB").totalCost());
+            assertEquals(sr.leastHop("EDI", "DXB"), fromSnapshot.leastHop("EDI", "DXB"));
+            List<Flight> flights = fromSnapshot.getFlights("LHR", "DXB");
+            assertEquals(sr.getFlights("LHR", "DXB").size(), flights.size());
+            for (int i = 0; i < flights.size(); i++) {
+                assertEquals(sr.getFlights("LHR", "DXB").get(i).getCode(), flights.get(i).getCode());
+                assertEquals(sr.getFlights("LHR", "DXB").get(i).getPrice(), flights.get(i).getPrice(), 0);
+                assertEquals("LHR", flights.get(i).getFrom());
+            }
+
+            assertTrue(fromSnapshot.update(new FlightUpdates().add("ZZ0001", "EDI", "0700", "DXB", "1500", 20))); // the graph takes the flights of the snapshot
+            assertEquals(20, fromSnapshot.leastCost("EDI", "DXB").totalCost());
+            assertTrue(fromSnapshot.update(new FlightUpdates().remove("ZZ0001")));
+            assertEquals(sr.leastCost("LHR", "SYD"), fromSnapshot.leastCost("LHR", "SYD")); // the flights of the snapshot, added in the same order
+
+            try { // a snapshot made for other airlines is stale
+                NetworkSnapshot.read(file, FlightsParser.stamp(FlightsParser.MOREAIRLINECODES));
+                fail();
+            } catch (AirRoutesException e) {
+                assertTrue(e.getMessage().contains("stale"));
+            }
+
+            File truncated = File.createTempFile("airmaps", ".snapshot");
+            truncated.deleteOnExit();
+            byte[] bytes = java.nio.file.Files.readAllBytes(file.toPath());
+            java.nio.file.Files.write(truncated.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+            try {
+                NetworkSnapshot.read(truncated, FlightsParser.stamp(FlightsParser.AIRLINECODES));
+                fail();
+            } catch (AirRoutesException e) {
+                // the file underflows
+            }
+        } catch (IOException | AirRoutesException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void routeValueTest() {
+        try {
+            Route ir1 = srMore.leastCost("EDI", "DXB");
+            Route ir2 = srMore.leastCost("EDI", "DXB");
+            assertEquals(ir1, ir2); // routes with the same stops and flights are equal
+            assertEquals(ir1.hashCode(), ir2.hashCode());
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(ir1);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                Route copy = (Route) in.readObject();
+                assertEquals(ir1, copy);
+                assertEquals(363, copy.totalCost());
+                assertEquals(ir1.totalTime(), copy.totalTime());
+            }
+        } catch (AirRoutesException | IOException | ClassNotFoundException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void getFlightsTest() {
+        List<Flight> flights = srMore.getFlights("DXB", "NRT");
+        assertFalse(flights.isEmpty());
+        double cheapest = Double.MAX_VALUE;
+        for (int i = 0; i < flights.size(); i++) {
+            if (i > 0) { // the parallel flights are sorted by departure time
+                assertTrue(flights.get(i - 1).getDepartureMinute() <= flights.get(i).getDepartureMinute());
+            }
+            cheapest = Math.min(cheapest, flights.get(i).getPrice());
+        }
+        assertEquals(518, cheapest, 0); // the direct DXB to NRT route takes the cheapest of these flights
+        assertTrue(srMore.getFlights("DXB", "XXX").isEmpty());
+    }
+
     @Test
     public void leastHopTest() {
         try {
@@ -83,6 +220,22 @@ public class AirRoutesTest {
         }
     }
 
+    @Test
+    public void routesCostTest() {
+        try {
+            List<String> exclude = new ArrayList<>(Arrays.asList("LGW", "NCL"));
+            List<Route> bounded = sr.allRoutesCost("DXB", "EDI", exclude, 405);
+            List<Route> lazy = sr.routesCost("DXB", "EDI", exclude).limit(bounded.size() + 1).collect(Collectors.toList());
+            assertEquals(bounded, lazy.subList(0, bounded.size())); // the same routes, in the same order
+            assertTrue(lazy.get(bounded.size()).totalCost() > 405);
+            for (int i = 1; i < lazy.size(); i++) { // in increasing cost
+                assertTrue(lazy.get(i - 1).totalCost() <= lazy.get(i).totalCost());
+            }
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
     @Test
     public void allRoutesHopTest() {
         try {
@@ -94,6 +247,444 @@ public class AirRoutesTest {
         }
     }
 
+    @Test
+    public void routesHopTest() {
+        try {
+            List<String> exclude = new ArrayList<>(Arrays.asList("LHR", "EWR"));
+            List<Route> all = srMore.allRoutesHop("LGA", "BCN", exclude, 3);
+            List<Route> first = srMore.routesHop("LGA", "BCN", exclude, 4).limit(all.size()).collect(Collectors.toList());
+            assertEquals(all, first); // the routes of 4 hops only come after all the shorter ones
+            for (int i = 1; i < first.size(); i++) { // in increasing hops, never through an excluded airport
+                assertTrue(first.get(i - 1).getStops().size() <= first.get(i).getStops().size());
+                assertTrue(Collections.disjoint(exclude, first.get(i).getStops()));
+            }
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void concurrentRoutesTest() {
+        AirRoutes single = new AirRoutes(); // populated in the same order, so that equally good routes are chosen alike
+        single.populate(fr.getAirlines(), fr.getAirports(), fr.getFlightTable());
+        ConcurrentRoutes shared = new ConcurrentRoutes();
+        shared.populate(fr.getAirlines(), fr.getAirports(), fr.getFlightTable());
+        FrozenRoutes before = shared.freeze();
+        String[] airports = {"EDI", "DXB", "LHR", "NRT", "SYD", "MAD", "TXL", "RTM"};
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < 8; t++) {
+            final int offset = t;
+            Thread thread = new Thread(() -> { // every thread queries every pair, starting at another one
+                try {
+                    for (int i = 0; i < airports.length * airports.length; i++) {
+                        int k = (i + offset * 7) % (airports.length * airports.length);
+                        String from = airports[k / airports.length], to = airports[k % airports.length];
+                        if (!from.equals(to)) {
+                            assertEquals(single.leastCost(from, to), shared.leastCost(from, to));
+                            assertEquals(single.leastHop(from, to), shared.leastHop(from, to));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(Collections.emptyList(), failures);
+            shared.populate(frMore.getAirlines(), frMore.getAirports(), frMore.getFlightTable());
+            assertEquals(363, shared.leastCost("EDI", "DXB").totalCost()); // the new flights are queried
+            assertEquals(364, before.leastCost("EDI", "DXB").totalCost()); // the earlier routes are unchanged
+        } catch (InterruptedException | AirRoutesException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void leastCostBatchTest() {
+        List<RouteQuery> queries = new ArrayList<>();
+        String[] airports = {"EDI", "DXB", "LHR", "NRT", "SYD", "XXX"};
+        for (String from : airports) {
+            for (String to : airports) {
+                if (!from.equals(to)) {
+                    queries.add(new RouteQuery(from, to));
+                }
+            }
+        }
+        List<RouteResult> results = sr.leastCostBatch(queries);
+        assertEquals(queries.size(), results.size());
+        for (int i = 0; i < queries.size(); i++) { // in the order of the queries, as if they were asked one by one
+            RouteQuery query = queries.get(i);
+            assertSame(query, results.get(i).getQuery());
+            try {
+                assertEquals(sr.leastCost(query.getFrom(), query.getTo()), results.get(i).getRoute());
+                assertTrue(results.get(i).isSuccess());
+            } catch (AirRoutesException e) {
+                assertEquals(e.getMessage(), results.get(i).getError().getMessage()); // the unknown airport fails alone
+            }
+        }
+    }
+
+    @Test
+    public void precomputeTest() {
+        try {
+            File file = File.createTempFile("routes", ".matrix");
+            file.deleteOnExit();
+            AirRoutes precomputed = new AirRoutes();
+            precomputed.populate(fr.getAirlines(), fr.getAirports(), fr.getFlights());
+            precomputed.precompute(file, FlightsParser.AIRLINECODES);
+            long written = file.lastModified();
+            assertNotNull(precomputed.freeze().getMatrix());
+            List<String> airports = sr.freeze().network().airports(); // the same order, populated from the same flights
+            for (String from : airports.subList(0, 30)) {
+                for (String to : airports) { // the same routes as searched, unreachable airports included
+                    assertEquals(sr.leastHop(from, to), precomputed.leastHop(from, to));
+                    try {
+                        assertEquals(sr.leastCost(from, to), precomputed.leastCost(from, to));
+                    } catch (AirRoutesException e) {
+                        try {
+                            precomputed.leastCost(from, to);
+                            fail();
+                        } catch (AirRoutesException expected) {
+                            assertEquals(e.getMessage(), expected.getMessage());
+                        }
+                    }
+                }
+            }
+            AirRoutes reloaded = new AirRoutes();
+            reloaded.populate(fr.getAirlines(), fr.getAirports(), fr.getFlights());
+            reloaded.precompute(file, FlightsParser.AIRLINECODES); // the file is reused, not written again
+            assertEquals(written, file.lastModified());
+            assertEquals(364, reloaded.leastCost("EDI", "DXB").totalCost());
+            reloaded.populate(frMore.getAirlines(), frMore.getAirports(), frMore.getFlights()); // a populate drops the matrix
+            assertNull(reloaded.freeze().getMatrix());
+            assertEquals(363, reloaded.leastCost("EDI", "DXB").totalCost());
+        } catch (IOException | AirRoutesException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void cachingRoutesTest() {
+        try {
+            CachingRoutes cache = new CachingRoutes(new AirRoutes(), 2);
+            cache.populate(fr.getAirlines(), fr.getAirports(), fr.getFlights());
+            Route route = cache.leastCost("EDI", "DXB", Arrays.asList("FRA", "LHR"));
+            assertSame(route, cache.leastCost("EDI", "DXB", Arrays.asList("LHR", "FRA", "LHR"))); // the same exclusion set
+            assertEquals(1, cache.getHits());
+            assertEquals(1, cache.getMisses());
+            cache.leastCost("EDI", "DXB");
+            cache.leastHop("EDI", "DXB");
+            assertEquals(2, cache.size()); // the least recently used answer was evicted
+            assertEquals(1, cache.getEvictions());
+            cache.populate(frMore.getAirlines(), frMore.getAirports(), frMore.getFlights());
+            assertEquals(0, cache.size());
+            assertEquals(363, cache.leastCost("EDI", "DXB").totalCost()); // asked again after the populate
+            assertEquals(4, cache.getMisses());
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void updateTest() {
+        try {
+            FrozenRoutes before = sr.freeze();
+            Route cheapest = sr.leastCost("EDI", "DXB");
+            Flight first = ((FlightRoute) cheapest).getLegs().get(0);
+            FlightUpdates updates = new FlightUpdates()
+                    .reprice(first.getCode(), 1000) // the cheapest route gets expensive
+                    .add("ZZ0001", "EDI", "0700", "DXB", "1500", 10)
+                    .reprice("ZZ0001", 20)
+                    .remove("XX9999"); // not a flight, removing it changes nothing
+            assertTrue(sr.update(updates));
+            assertFalse(sr.update(updates)); // applying the same changes again changes nothing
+            assertEquals(20, sr.leastCost("EDI", "DXB").totalCost());
+            assertEquals(364, before.leastCost("EDI", "DXB").totalCost()); // the earlier copy is unchanged
+            assertEquals(cheapest.totalCost(), before.leastCost("EDI", "DXB").totalCost());
+            assertTrue(sr.update(new FlightUpdates().remove("ZZ0001")));
+            assertTrue(sr.leastCost("EDI", "DXB").totalCost() > 364);
+            try {
+                sr.update(new FlightUpdates().add("ZZ0002", "EDI", "0700", "DXB", "1500", 10).reprice("ZZ0003", 5));
+                fail();
+            } catch (AirRoutesException e) {
+                assertTrue(sr.getFlights("EDI", "DXB").isEmpty() || sr.getFlights("EDI", "DXB").stream().noneMatch(f -> f.getCode().equals("ZZ0002")));
+            }
+            int cost = sr.leastCost("EDI", "DXB").totalCost();
+            for (double price : new double[] { -1, Double.NaN }) { // the searches need prices of zero or more
+                try {
+                    sr.update(new FlightUpdates().reprice(first.getCode(), 300).add("ZZ0004", "EDI", "0700", "DXB", "1500", price));
+                    fail();
+                } catch (AirRoutesException e) {
+                    assertEquals(cost, sr.leastCost("EDI", "DXB").totalCost()); // nothing of the update was applied
+                }
+            }
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void aStarTest() {
+        try {
+            assertEquals(364, sr.leastCost("EDI", "DXB", CostEngine.A_STAR).totalCost()); // without coordinates, by landmarks
+            List<String> exclude = new ArrayList<>(Arrays.asList("LHR", "FRA"));
+            assertEquals(369, srMore.leastCost("EDI", "DXB", exclude, CostEngine.A_STAR).totalCost());
+            HashSet<String[]> located = new HashSet<>(); // made up coordinates still give lower bounds
+            Random random = new Random(1);
+            for (String[] airport : fr.getAirports()) {
+                located.add(new String[] { airport[0], airport[1], airport[2], "" + (random.nextDouble() * 180 - 90), "" + (random.nextDouble() * 360 - 180) });
+            }
+            AirRoutes geo = new AirRoutes();
+            geo.populate(fr.getAirlines(), located, fr.getFlights());
+            for (String from : Arrays.asList("EDI", "DXB", "NRT", "SYD")) {
+                for (String to : Arrays.asList("LHR", "MAD", "TXL", "JFK")) {
+                    assertEquals(sr.leastCost(from, to).totalCost(), sr.leastCost(from, to, CostEngine.A_STAR).totalCost());
+                    assertEquals(sr.leastCost(from, to).totalCost(), geo.leastCost(from, to, CostEngine.A_STAR).totalCost());
+                }
+            }
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void metricsTest() {
+        QueryMetrics metrics = new QueryMetrics();
+        InstrumentedRoutes instrumented = new InstrumentedRoutes(new CachingRoutes(sr, 100, metrics), metrics);
+        try {
+            metrics.register("AirMapsTest");
+            assertEquals(364, instrumented.leastCost("EDI", "DXB").totalCost());
+            assertEquals(364, instrumented.leastCost("EDI", "DXB").totalCost()); // from the cache, without searching
+            OperationMetrics leastCost = metrics.getOperations().get("leastCost");
+            assertEquals(2, leastCost.getCount());
+            assertEquals(1, leastCost.getCacheHits());
+            assertEquals(1, leastCost.getCacheMisses());
+            assertTrue(leastCost.getSettled() > 0);
+            assertTrue(leastCost.getRelaxed() >= leastCost.getSettled());
+            assertTrue(leastCost.getP50Millis() > 0 && leastCost.getP50Millis() <= leastCost.getMaxMillis());
+            try {
+                instrumented.leastCost("EDI", "XXX");
+                fail();
+            } catch (AirRoutesException expected) {
+            }
+            assertEquals(1, leastCost.getErrors());
+
+            List<String> exclude = new ArrayList<>(Arrays.asList("LGW", "NCL"));
+            assertEquals(3, instrumented.allRoutesCost("DXB", "EDI", exclude, 405).size());
+            assertEquals(3, metrics.getOperations().get("allRoutesCost").getPaths());
+
+            javax.management.ObjectName name = new javax.management.ObjectName("AirMapsTest:type=Routes,operation=leastCost");
+            assertEquals(3L, java.lang.management.ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Count"));
+            instrumented.setEnabled(false);
+            instrumented.leastHop("EDI", "DXB");
+            assertEquals(0, metrics.getOperations().get("leastHop").getCount());
+        } catch (AirRoutesException | javax.management.JMException e) {
+            fail();
+        } finally {
+            try {
+                metrics.unregister();
+            } catch (AirRoutesException e) {
+                fail();
+            }
+        }
+    }
+
+    @Test
+    public void queryOptionsTest() {
+        try {
+            List<String> exclude = new ArrayList<>();
+            QueryResult<List<Route>> all = srMore.allRoutesHop("LGA", "BCN", exclude, 3, new QueryOptions());
+            assertTrue(all.isComplete());
+            assertEquals(srMore.allRoutesHop("LGA", "BCN", exclude, 3), all.getValue());
+            QueryResult<List<Route>> first = srMore.allRoutesHop("LGA", "BCN", exclude, 3, new QueryOptions().maxResults(2));
+            assertFalse(first.isComplete());
+            assertEquals(QueryResult.Reason.MAX_RESULTS, first.getReason());
+            assertEquals(all.getValue().subList(0, 2), first.getValue());
+            assertEquals(364, sr.leastCost("EDI", "DXB", exclude, new QueryOptions().timeout(60000)).getValue().totalCost());
+            for (QueryOptions far : new QueryOptions[] { new QueryOptions().timeout(Long.MAX_VALUE), new QueryOptions().deadline(Long.MAX_VALUE - 1),
+                    new QueryOptions().timeout(Long.MAX_VALUE / 1000).deadline(Long.MAX_VALUE / 2) }) { // no overflow into the past
+                QueryResult<Route> result = sr.leastCost("EDI", "DXB", exclude, far);
+                assertTrue(result.isComplete());
+                assertEquals(364, result.getValue().totalCost());
+            }
+            for (QueryOptions past : new QueryOptions[] { new QueryOptions().deadline(Long.MIN_VALUE), new QueryOptions().deadline(System.currentTimeMillis() - 1000) }) {
+                assertEquals(QueryResult.Reason.DEADLINE, sr.leastCost("EDI", "DXB", exclude, past).getReason());
+            }
+
+            QueryOptions cancelled = new QueryOptions();
+            cancelled.cancel();
+            QueryResult<String> meetUp = sr.leastTimeMeetUp("DXB", "EDI", "0900", cancelled);
+            assertEquals(QueryResult.Reason.CANCELLED, meetUp.getReason());
+            assertNull(meetUp.getValue());
+            QueryResult<List<RouteResult>> batch = sr.leastCostBatch(Arrays.asList(new RouteQuery("EDI", "DXB")), cancelled);
+            assertFalse(batch.isComplete());
+            assertFalse(batch.getValue().get(0).isSuccess());
+
+            // far too many routes for a millisecond: the ones found by then are returned, in increasing hops
+            QueryResult<List<Route>> late = srMore.allRoutesHop("LGA", "BCN", exclude, 6, new QueryOptions().timeout(1));
+            assertEquals(QueryResult.Reason.DEADLINE, late.getReason());
+            for (int i = 1; i < late.getValue().size(); i++) {
+                assertTrue(late.getValue().get(i - 1).totalHop() <= late.getValue().get(i).totalHop());
+            }
+            assertEquals(364, sr.leastCost("EDI", "DXB").totalCost()); // nothing left behind by the stopped queries
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void paretoTest() {
+        try {
+            List<String> exclude = new ArrayList<>();
+            QueryResult<List<Route>> pareto = sr.paretoRoutes("EDI", "DXB", exclude, 1000000);
+            List<Route> routes = pareto.getValue();
+            assertTrue(pareto.isComplete());
+            assertTrue(routes.size() > 1);
+            assertEquals(364, routes.get(0).totalCost()); // in increasing cost, starting with a cheapest route
+            int hops = Integer.MAX_VALUE;
+            for (Route r : routes) {
+                hops = Math.min(hops, r.totalHop());
+                for (Route other : routes) { // every route is a trade-off: none is as good as another on every criterion
+                    assertFalse(other != r && other.totalCost() <= r.totalCost() && other.totalHop() <= r.totalHop() && other.totalTime() <= r.totalTime());
+                }
+            }
+            assertEquals(sr.leastHop("EDI", "DXB").totalHop(), hops);
+
+            QueryResult<List<Route>> cut = sr.paretoRoutes("EDI", "DXB", exclude, 20);
+            assertEquals(QueryResult.Reason.MAX_LABELS, cut.getReason());
+            assertTrue(routes.containsAll(cut.getValue())); // the routes found before the cut are Pareto-optimal too
+            QueryResult<List<Route>> first = sr.paretoRoutes("EDI", "DXB", exclude, 1000000, new QueryOptions().maxResults(1));
+            assertEquals(QueryResult.Reason.MAX_RESULTS, first.getReason());
+            assertEquals(routes.subList(0, 1), first.getValue());
+            QueryResult<List<Route>> exactly = sr.paretoRoutes("EDI", "DXB", exclude, 1000000, new QueryOptions().maxResults(routes.size()));
+            assertTrue(exactly.isComplete()); // the labels left cannot lead to another route
+            assertEquals(routes, exactly.getValue());
+            exclude.add("LHR");
+            for (Route r : sr.paretoRoutes("EDI", "DXB", exclude, 1000000).getValue()) {
+                assertFalse(r.getStops().contains("LHR"));
+            }
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void generatorTest() {
+        try {
+            File folder = java.nio.file.Files.createTempDirectory("airmaps").toFile();
+            File again = java.nio.file.Files.createTempDirectory("airmaps").toFile();
+            NetworkGenerator generator = new NetworkGenerator().airports(300).airlines(5).flightsPerDay(3000).hubSkew(1.2);
+            generator.write(folder);
+            generator.write(again);
+            String[] codes = generator.getAirlineCodes();
+            assertEquals(FlightsParser.checksum(folder, codes), FlightsParser.checksum(again, codes)); // the same files
+            new NetworkGenerator().airports(300).airlines(5).flightsPerDay(3000).hubSkew(1.2).seed(2).write(again);
+            assertNotEquals(FlightsParser.checksum(folder, codes), FlightsParser.checksum(again, codes));
+            for (File f : new File[] { folder, again }) {
+                for (File file : f.listFiles()) {
+                    file.deleteOnExit();
+                }
+                f.deleteOnExit();
+            }
+
+            FlightsParser parser = new FlightsParser(folder, codes);
+            assertEquals(5, parser.getAirlines().size());
+            assertEquals(3000, parser.getFlightTable().size());
+            AirRoutes generated = new AirRoutes();
+            generated.populate(parser.getAirlines(), parser.getAirports(), parser.getFlightTable());
+            List<String> airports = generated.freeze().network().airports();
+            for (String to : airports.subList(1, 50)) { // the same routes by every engine, bounded by the coordinates for A*
+                Route hops = generated.leastHop("AAA", to);
+                if (hops == null) {
+                    assertNull(generated.leastHop("AAA", to, HopEngine.BIDIRECTIONAL));
+                    continue;
+                }
+                assertEquals(hops.totalHop(), generated.leastHop("AAA", to, HopEngine.BIDIRECTIONAL).totalHop());
+                Route route = generated.leastCost("AAA", to);
+                assertEquals("AAA", route.getStops().get(0));
+                assertEquals(route.totalCost(), generated.leastCost("AAA", to, CostEngine.A_STAR).totalCost());
+            }
+        } catch (AirRoutesException | IOException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void bidirectionalTest() {
+        try {
+            assertEquals(364, sr.leastCost("EDI", "DXB", CostEngine.BIDIRECTIONAL).totalCost());
+            List<String> exclude = new ArrayList<>(Arrays.asList("LHR", "FRA"));
+            assertEquals(369, srMore.leastCost("EDI", "DXB", exclude, CostEngine.BIDIRECTIONAL).totalCost());
+            assertEquals(2, srMore.leastHop("DXB", "LGA", HopEngine.BIDIRECTIONAL).totalHop());
+            exclude = new ArrayList<>(Arrays.asList("LHR", "LGW", "FRA", "IST", "CDG", "AMS"));
+            Route route = srMore.leastHop("DXB", "EDI", exclude, HopEngine.BIDIRECTIONAL);
+            assertEquals(3, route.totalHop());
+            for (String stop : route.getStops()) { // the excluded airports are skipped by both searches
+                assertFalse(exclude.contains(stop));
+            }
+            List<String> airports = sr.freeze().network().airports();
+            for (String from : airports.subList(0, 20)) {
+                for (String to : airports) { // the same costs and hops as searched from one side, unreachable airports included
+                    Route hops = sr.leastHop(from, to);
+                    Route bidirectional = sr.leastHop(from, to, HopEngine.BIDIRECTIONAL);
+                    assertEquals(hops == null, bidirectional == null);
+                    if (hops != null) {
+                        assertEquals(hops.totalHop(), bidirectional.totalHop());
+                        assertEquals(sr.leastCost(from, to).totalCost(), sr.leastCost(from, to, CostEngine.BIDIRECTIONAL).totalCost());
+                    }
+                }
+            }
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void contractTest() {
+        try {
+            AirRoutes contracted = new AirRoutes();
+            contracted.populate(fr.getAirlines(), fr.getAirports(), fr.getFlights());
+            File file = File.createTempFile("routes", ".hierarchy");
+            file.deleteOnExit();
+            contracted.contract().write(file);
+            contracted.contract(ContractionHierarchy.read(file));
+            assertEquals(364, contracted.leastCost("EDI", "DXB").totalCost());
+            List<String> airports = sr.freeze().network().airports();
+            for (String from : airports.subList(0, 20)) {
+                for (String to : airports) { // the same costs as searched, unreachable airports included
+                    try {
+                        Route route = contracted.leastCost(from, to);
+                        assertEquals(sr.leastCost(from, to).totalCost(), route.totalCost());
+                        assertEquals(to, route.getStops().get(route.getStops().size() - 1));
+                    } catch (AirRoutesException e) {
+                        try {
+                            sr.leastCost(from, to);
+                            fail();
+                        } catch (AirRoutesException expected) {
+                            assertEquals(e.getMessage(), expected.getMessage());
+                        }
+                    }
+                }
+            }
+            List<String> exclude = new ArrayList<>(Arrays.asList("LHR", "FRA")); // searched without the hierarchy
+            assertEquals(sr.leastCost("EDI", "DXB", exclude).totalCost(),
+                    contracted.leastCost("EDI", "DXB", exclude, CostEngine.CONTRACTION_HIERARCHY).totalCost());
+            try {
+                srMore.contract(contracted.freeze().getHierarchy()); // the hierarchy of other flights
+                fail();
+            } catch (AirRoutesException expected) {
+            }
+        } catch (AirRoutesException | IOException e) {
+            fail();
+        }
+    }
+
     @Test
     public void leastCostMeetUpTest() {
         try {
@@ -106,6 +697,18 @@ public class AirRoutesTest {
         }
     }
 
+    @Test
+    public void meetUpCostsTest() {
+        try {
+            MeetUpCosts costs = sr.meetUpCosts("DXB", "EDI");
+            assertEquals(Arrays.asList("LHR", "LGW"), costs.best(2)); // the two cheapest meet up airports for DXB and EDI
+            int lhr = costs.getAirports().indexOf("LHR");
+            assertEquals(368, costs.getCosts1()[lhr] + costs.getCosts2()[lhr], 0);
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
     @Test
     public void leastHopMeetUpTest() {
         try {
@@ -121,6 +724,18 @@ public class AirRoutesTest {
         }
     }
 
+    @Test
+    public void leastHopMeetUpRoutesTest() {
+        try {
+            MeetUp meetUp = sr.leastHopMeetUpRoutes("CDG", "CAI");
+            assertEquals(meetUp.getAirport(), meetUp.getRoute1().getStops().get(meetUp.getRoute1().totalHop()));
+            assertEquals(meetUp.getAirport(), meetUp.getRoute2().getStops().get(meetUp.getRoute2().totalHop()));
+            assertEquals(2, meetUp.getRoute1().totalHop() + meetUp.getRoute2().totalHop()); // one direct flight from each airport
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
     @Test
     public void leastTimeMeetUpTest() {
         try {
@@ -132,4 +747,47 @@ public class AirRoutesTest {
             fail();
         }
     }
+
+    @Test
+    public void earliestRouteTest() {
+        try {
+            FrozenRoutes frozen = sr.freeze();
+            FlightRoute route = (FlightRoute) frozen.earliestRoute("EDI", "DXB", "0900");
+            assertEquals(Arrays.asList("EDI", "LHR", "DXB"), route.getStops());
+            assertEquals(15 * 60 + 18, arrival(route, "0900")); // lands at 0018 the next day
+            assertEquals(arrival(route, "0900") - departure(route, "0900"), route.totalTime());
+
+            route = (FlightRoute) frozen.earliestRoute("EDI", "DXB", "2100"); // nothing leaves before 0129 the next day
+            assertEquals(Arrays.asList("EDI", "LCY", "ZRH", "DXB"), route.getStops());
+            assertEquals("0129", route.getLegs().get(0).getDeparture());
+            assertEquals(24 * 60 + 15, arrival(route, "2100")); // lands at 2115 the next day, after a day in ZRH
+
+            assertNull(frozen.earliestRoute("EDI", "DRW", "0900")); // no flight reaches DRW
+        } catch (AirRoutesException e) {
+            fail();
+        }
+    }
+
+    // minutes from a starting time (HHMM) to the departure of the first flight of a route
+    private static int departure(FlightRoute route, String startTime) {
+        return Flight.minutesBetween(Flight.minutes(startTime), route.getLegs().get(0).getDepartureMinute());
+    }
+
+    // minutes from a starting time (HHMM) to the arrival of a route, checking that every flight leaves strictly
+    // after the previous one landed, at the next departure
+    private static int arrival(FlightRoute route, String startTime) {
+        int time = departure(route, startTime);
+        Flight previous = null;
+        for (Flight f : route.getLegs()) {
+            if (previous != null) {
+                assertEquals(previous.getTo(), f.getFrom());
+                int wait = Flight.minutesBetween(previous.getArrivalMinute(), f.getDepartureMinute());
+                assertTrue(wait > 0 && wait < 24 * 60); // leaves strictly after the previous flight landed
+                time += wait;
+            }
+            time += f.getDuration();
+            previous = f;
+        }
+        return time;
+    }
 }